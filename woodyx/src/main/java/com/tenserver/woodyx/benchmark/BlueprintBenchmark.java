@@ -0,0 +1,210 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.benchmark;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.tenserver.woodyx.physics.Blueprint;
+import com.tenserver.woodyx.physics.ObjectModel;
+import com.tenserver.woodyx.physics.ObjectsJoint;
+import com.tenserver.woodyx.physics.PhysicsRuntime;
+
+/**
+ * Measure {@link Blueprint#instantiate} against building the same rope body by
+ * body with the {@link ObjectModel} and {@link ObjectsJoint} constructors, the
+ * best round of each way is kept. It runs on {@link PhysicsRuntime} and needs
+ * no GL context: start it with any backend, which loads the Box2D natives (e.g.
+ * <code>new LwjglApplication(new BlueprintBenchmark(20, 100, 10), config)</code>
+ * or the Android launcher), the results are logged then the application exits
+ *
+ * @author kong
+ *
+ */
+public class BlueprintBenchmark implements ApplicationListener {
+	private static final String LOG_TAG = "BlueprintBenchmark";
+
+	private static final float DENSITY = 1;
+	private static final float FRICTION = 0.5f;
+	private static final int CATEGORY = 0x0001;
+	private static final int MASK = 0xFFFF;
+	private static final String TAG = "rope";
+
+	private int segments;
+	private int instances;
+	private int rounds;
+	private Vector2 size = new Vector2(32, 8);
+
+	// results, the best round, unit: nanosecond
+	private long blueprintTime;
+	private long perBodyTime;
+
+	/**
+	 * @param segments:  segments (bodies) of the rope
+	 * @param instances: ropes created per round
+	 * @param rounds:    measured rounds of each way
+	 */
+	public BlueprintBenchmark(int segments, int instances, int rounds) {
+		this.segments = segments;
+		this.instances = instances;
+		this.rounds = rounds;
+	}
+
+	@Override
+	public void create() {
+		run();
+		log();
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Run the benchmark, the natives are loaded
+	 */
+	public void run() {
+		PhysicsRuntime runtime = new PhysicsRuntime(new Vector2(0, -10), true);
+		World world = runtime.getWorld();
+		Blueprint blueprint = Blueprint.rope(segments, size, DENSITY, FRICTION, CATEGORY, MASK, TAG);
+		blueprint.compile();
+
+		Array<ObjectModel> models = new Array<ObjectModel>(segments * instances);
+		Array<ObjectsJoint> joints = new Array<ObjectsJoint>(segments * instances);
+
+		// warm up
+		measureBlueprint(world, blueprint, models, joints);
+		measurePerBody(world, models, joints);
+
+		blueprintTime = Long.MAX_VALUE;
+		perBodyTime = Long.MAX_VALUE;
+		for (int i = 0; i < rounds; i++) {
+			blueprintTime = Math.min(blueprintTime, measureBlueprint(world, blueprint, models, joints));
+			perBodyTime = Math.min(perBodyTime, measurePerBody(world, models, joints));
+		}
+
+		blueprint.dispose();
+		runtime.dispose();
+	}
+
+	/**
+	 * Retrieve the best time to create the ropes by the blueprint, unit:
+	 * nanosecond
+	 */
+	public long getBlueprintTime() {
+		return blueprintTime;
+	}
+
+	/**
+	 * Retrieve the best time to create the ropes body by body, unit: nanosecond
+	 */
+	public long getPerBodyTime() {
+		return perBodyTime;
+	}
+
+	/**
+	 * Retrieve perBodyTime / blueprintTime, more than 1 if the blueprint is
+	 * faster
+	 */
+	public float getSpeedup() {
+		return blueprintTime > 0 ? (float) perBodyTime / blueprintTime : 0;
+	}
+
+	// Create the ropes by the blueprint, retrieve the time
+	private long measureBlueprint(World world, Blueprint blueprint, Array<ObjectModel> models,
+			Array<ObjectsJoint> joints) {
+		long start = System.nanoTime();
+		for (int i = 0; i < instances; i++) {
+			blueprint.instantiate(world, 0, i * size.y * 2, 0, 1, models, joints);
+		}
+		long time = System.nanoTime() - start;
+
+		destroy(world, models, joints);
+		return time;
+	}
+
+	// Create the same ropes body by body, retrieve the time
+	private long measurePerBody(World world, Array<ObjectModel> models, Array<ObjectsJoint> joints) {
+		Vector2 position = new Vector2();
+		Vector2 anchorA = new Vector2(size.x / 2, 0);
+		Vector2 anchorB = new Vector2(-size.x / 2, 0);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < instances; i++) {
+			float y = i * size.y * 2;
+			ObjectModel previous = null;
+			for (int j = 0; j < segments; j++) {
+				// the position of basic shape is its bottom left corner
+				position.set(size.x * j, y - size.y / 2);
+				ObjectModel model = new ObjectModel(world, ObjectModel.DYNAMIC, ObjectModel.POLYGON, size.cpy(), 0,
+						position, 0, DENSITY, FRICTION, 0, CATEGORY, MASK, TAG);
+				models.add(model);
+				if (previous != null) {
+					joints.add(new ObjectsJoint(world, previous, model, ObjectsJoint.REVOLUTE, anchorA, anchorB,
+							false));
+				}
+				previous = model;
+			}
+		}
+		long time = System.nanoTime() - start;
+
+		destroy(world, models, joints);
+		return time;
+	}
+
+	// Destroy the created ropes, the joints are destroyed with their bodies
+	private void destroy(World world, Array<ObjectModel> models, Array<ObjectsJoint> joints) {
+		for (int i = 0; i < models.size; i++) {
+			models.get(i).dispose(world);
+		}
+		models.clear();
+		joints.clear();
+	}
+
+	// Log the results
+	private void log() {
+		Gdx.app.log(LOG_TAG, "ropes: " + instances + " x " + segments + " bodies, best of " + rounds + " rounds");
+		Gdx.app.log(LOG_TAG, "blueprint " + blueprintTime / 1000 + " us, per body " + perBodyTime / 1000
+				+ " us, speedup " + getSpeedup());
+	}
+
+	@Override
+	public void render() {
+	}
+
+	@Override
+	public void resize(int width, int height) {
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+	}
+}
@@ -0,0 +1,239 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.benchmark;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.tenserver.woodyx.renderer.InstancedRenderer;
+
+/**
+ * Compare {@link InstancedRenderer} with SpriteBatch for the same quads. Each
+ * fraction of moved quads per frame is measured for both ways, the frame time
+ * includes glFinish() so the upload and the drawing are counted. It needs a GL
+ * context: start it with the backend of the target (e.g.
+ * <code>new LwjglApplication(new InstancedBenchmark(20000, 120), config)</code>
+ * or the Android launcher), the results are logged then the application exits
+ *
+ * @author kong
+ *
+ */
+public class InstancedBenchmark implements ApplicationListener {
+	private static final String TAG = "InstancedBenchmark";
+
+	// fractions of moved quads per frame
+	public static final float[] FRACTIONS = { 0, 0.05f, 0.1f, 0.25f, 0.5f, 1 };
+
+	private static final float SIZE = 8;
+	// SpriteBatch is limited to 5460 sprites per flush
+	private static final int BATCH_SIZE = 5460;
+
+	private int count;
+	private int frames;
+
+	private Texture texture;
+	private TextureRegion region;
+	private SpriteBatch batch;
+	private InstancedRenderer renderer;
+	private OrthographicCamera camera;
+	private float color;
+
+	// the quads
+	private float[] positionsX;
+	private float[] positionsY;
+	private float[] rotations;
+
+	// step = fraction * 2 + way (0: SpriteBatch, 1: instanced)
+	private int step;
+	private int frame;
+	private long total;
+
+	// results, average frame time, unit: nanosecond
+	private long[] batchTimes = new long[FRACTIONS.length];
+	private long[] instancedTimes = new long[FRACTIONS.length];
+
+	/**
+	 * @param count:  number of quads
+	 * @param frames: measured frames of each fraction and way
+	 */
+	public InstancedBenchmark(int count, int frames) {
+		this.count = count;
+		this.frames = frames;
+	}
+
+	@Override
+	public void create() {
+		Pixmap pixmap = new Pixmap(1, 1, Format.RGBA8888);
+		pixmap.setColor(Color.WHITE);
+		pixmap.fill();
+		texture = new Texture(pixmap);
+		pixmap.dispose();
+		region = new TextureRegion(texture);
+		color = Color.WHITE.toFloatBits();
+
+		batch = new SpriteBatch(BATCH_SIZE);
+		renderer = new InstancedRenderer(texture, count);
+		camera = new OrthographicCamera(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		camera.setToOrtho(false);
+
+		positionsX = new float[count];
+		positionsY = new float[count];
+		rotations = new float[count];
+		for (int i = 0; i < count; i++) {
+			positionsX[i] = MathUtils.random(Gdx.graphics.getWidth());
+			positionsY[i] = MathUtils.random(Gdx.graphics.getHeight());
+			rotations[i] = MathUtils.random(360f);
+			renderer.set(i, positionsX[i], positionsY[i], SIZE, SIZE, rotations[i], region, color);
+		}
+		renderer.setSize(count);
+
+		step = 0;
+		frame = 0;
+		total = 0;
+	}
+
+	@Override
+	public void render() {
+		if (step >= FRACTIONS.length * 2) {
+			return;
+		}
+
+		int fraction = step / 2;
+		boolean instanced = step % 2 == 1;
+		int moved = (int) (count * FRACTIONS[fraction]);
+
+		// the game logic moves the quads, it's the same for both ways
+		for (int i = 0; i < moved; i++) {
+			positionsX[i] = (positionsX[i] + 1) % Gdx.graphics.getWidth();
+		}
+
+		Gdx.gl20.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		long start = System.nanoTime();
+		if (instanced) {
+			for (int i = 0; i < moved; i++) {
+				renderer.setPosition(i, positionsX[i], positionsY[i]);
+			}
+			renderer.render(camera.combined);
+		} else {
+			batch.setProjectionMatrix(camera.combined);
+			batch.begin();
+			for (int i = 0; i < count; i++) {
+				batch.draw(region, positionsX[i] - SIZE / 2, positionsY[i] - SIZE / 2, SIZE / 2, SIZE / 2, SIZE, SIZE,
+						1, 1, rotations[i]);
+			}
+			batch.end();
+		}
+		Gdx.gl20.glFinish();
+		total += System.nanoTime() - start;
+
+		if (++frame == frames) {
+			if (instanced) {
+				instancedTimes[fraction] = total / frames;
+			} else {
+				batchTimes[fraction] = total / frames;
+			}
+			frame = 0;
+			total = 0;
+			step++;
+
+			if (step == FRACTIONS.length * 2) {
+				log();
+				Gdx.app.exit();
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the average frame time of SpriteBatch for the fraction, unit:
+	 * nanosecond
+	 */
+	public long getBatchTime(int fraction) {
+		return batchTimes[fraction];
+	}
+
+	/**
+	 * Retrieve the average frame time of InstancedRenderer for the fraction,
+	 * unit: nanosecond
+	 */
+	public long getInstancedTime(int fraction) {
+		return instancedTimes[fraction];
+	}
+
+	/**
+	 * Retrieve the highest measured fraction of moved quads for which
+	 * InstancedRenderer is faster, -1 if it's never faster
+	 */
+	public float getCrossover() {
+		float crossover = -1;
+		for (int i = 0; i < FRACTIONS.length; i++) {
+			if (instancedTimes[i] < batchTimes[i]) {
+				crossover = FRACTIONS[i];
+			}
+		}
+		return crossover;
+	}
+
+	// Log the results
+	private void log() {
+		Gdx.app.log(TAG, count + " quads, " + frames + " frames per measure");
+		for (int i = 0; i < FRACTIONS.length; i++) {
+			Gdx.app.log(TAG, "moved " + (int) (FRACTIONS[i] * 100) + "%: SpriteBatch " + batchTimes[i] / 1000
+					+ " us, instanced " + instancedTimes[i] / 1000 + " us");
+		}
+		float crossover = getCrossover();
+		if (crossover < 0) {
+			Gdx.app.log(TAG, "instanced is never faster");
+		} else {
+			Gdx.app.log(TAG, "instanced is faster up to " + (int) (crossover * 100) + "% moved quads");
+		}
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		camera.setToOrtho(false, width, height);
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+		batch.dispose();
+		renderer.dispose();
+		texture.dispose();
+	}
+}
@@ -25,6 +25,8 @@ package com.tenserver.woodyx.camera;
 
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector3;
 import com.tenserver.woodyx.accessor.SpriteAccessor;
 import com.tenserver.woodyx.physics.BoxUtility;
 
@@ -53,6 +55,15 @@ public class XCamera extends OrthographicCamera {
 	private boolean isZoomIn;
 	private boolean isFalled;
 	private boolean isFinishVibrate;
+	private boolean isInBox;
+
+	// increased when the matrices are updated
+	private int version;
+	// the state of the last update
+	private float lastX, lastY, lastZ;
+	private float lastUpX, lastUpY, lastUpZ;
+	private float lastDirectionX, lastDirectionY, lastDirectionZ;
+	private float lastZoom, lastViewportWidth, lastViewportHeight;
 
 	/**
 	 * Create a normal camera with view in the sreen's center
@@ -65,12 +76,16 @@ public class XCamera extends OrthographicCamera {
 		}
 		this.viewportWidth = viewportWidth * worldToBox;
 		this.viewportHeight = viewportHeight * worldToBox;
+		this.isInBox = isInBox;
 		// set other parameters
 		isZoomIn = false;
 		isZoomOut = false;
 		isFalled = false;
 		isFinishVibrate = true;
 		devide = 0;
+		version = 0;
+		// force the first update
+		lastZoom = -1;
 	}
 
 	/**
@@ -179,8 +194,48 @@ public class XCamera extends OrthographicCamera {
 	public void act(float deltaTime) {
 		// update the tween-effect
 		updateTween(deltaTime);
-		// update the camera
-		this.update();
+		// update the camera only if it's changed
+		if (isDirty()) {
+			this.update();
+		}
+	}
+
+	@Override
+	public void update(boolean updateFrustum) {
+		super.update(updateFrustum);
+		version++;
+
+		// keep the state
+		lastX = position.x;
+		lastY = position.y;
+		lastZ = position.z;
+		lastUpX = up.x;
+		lastUpY = up.y;
+		lastUpZ = up.z;
+		lastDirectionX = direction.x;
+		lastDirectionY = direction.y;
+		lastDirectionZ = direction.z;
+		lastZoom = zoom;
+		lastViewportWidth = viewportWidth;
+		lastViewportHeight = viewportHeight;
+	}
+
+	/**
+	 * Check if the position, zoom, rotation or viewport is changed since the
+	 * last update
+	 */
+	public boolean isDirty() {
+		return position.x != lastX || position.y != lastY || position.z != lastZ || up.x != lastUpX
+				|| up.y != lastUpY || up.z != lastUpZ || direction.x != lastDirectionX
+				|| direction.y != lastDirectionY || direction.z != lastDirectionZ || zoom != lastZoom
+				|| viewportWidth != lastViewportWidth || viewportHeight != lastViewportHeight;
+	}
+
+	/**
+	 * Retrieve the version of the matrices, it's increased by each update
+	 */
+	public int getVersion() {
+		return version;
 	}
 
 	/**
@@ -211,6 +266,45 @@ public class XCamera extends OrthographicCamera {
 		return isFinishVibrate;
 	}
 
+	/**
+	 * Check if the camera's unit is box
+	 */
+	public boolean isInBox() {
+		return isInBox;
+	}
+
+	/**
+	 * Retrieve the visible rectangle (zoom and rotation included) in the
+	 * camera's unit, it's valid after update()
+	 * 
+	 * @param bounds: the result
+	 * @return the bounds
+	 */
+	public Rectangle getViewBounds(Rectangle bounds) {
+		Vector3[] points = frustum.planePoints;
+		float minX = points[0].x, maxX = points[0].x;
+		float minY = points[0].y, maxY = points[0].y;
+		for (int i = 1; i < 4; i++) {
+			minX = Math.min(minX, points[i].x);
+			maxX = Math.max(maxX, points[i].x);
+			minY = Math.min(minY, points[i].y);
+			maxY = Math.max(maxY, points[i].y);
+		}
+		return bounds.set(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Retrieve the visible rectangle in box
+	 */
+	public Rectangle getViewBoundsInBox(Rectangle bounds) {
+		getViewBounds(bounds);
+		if (!isInBox) {
+			bounds.set(BoxUtility.ConvertToBox(bounds.x), BoxUtility.ConvertToBox(bounds.y),
+					BoxUtility.ConvertToBox(bounds.width), BoxUtility.ConvertToBox(bounds.height));
+		}
+		return bounds;
+	}
+
 	// Update the tween-effect
 	private void updateTween(float deltaTime) {
 		// update the tween-effect
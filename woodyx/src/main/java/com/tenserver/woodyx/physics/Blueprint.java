@@ -0,0 +1,451 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.JointDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.joints.DistanceJointDef;
+import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
+import com.badlogic.gdx.physics.box2d.joints.RopeJointDef;
+import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Description of an assembly of basic shape bodies and joints (ragdoll, rope,
+ * bridge...) with their transforms relative to the blueprint's origin. It's
+ * compiled once (box units, local anchors, reference angles) then instantiated
+ * in one call at any position, angle and scale. The body definition and the
+ * shapes are reused by all instances, each created joint keeps its own
+ * definition so it can be created again ({@link WorldSnapshot},
+ * {@link CommandBuffer#createJoint(ObjectsJoint)})
+ * <p>
+ * Supported joints: DISTANCE, REVOLUTE, ROPE, WELD of {@link ObjectsJoint}
+ *
+ * @author kong
+ *
+ */
+public class Blueprint {
+	// bodies
+	private Array<String> tags = new Array<String>();
+	private Array<byte[]> bodyKinds = new Array<byte[]>();
+	// x, y (center), angle, width, height, radius, density, friction,
+	// restitution, category, mask
+	private FloatArray bodyValues = new FloatArray();
+	private static final int BODY_VALUES = 11;
+
+	// joints
+	private Array<byte[]> jointKinds = new Array<byte[]>();
+	// bodyA, bodyB, anchorAX, anchorAY, anchorBX, anchorBY, lower, upper
+	private FloatArray jointValues = new FloatArray();
+	private static final int JOINT_VALUES = 8;
+
+	// compiled, in box
+	private boolean compiled;
+	private byte[] types;
+	private byte[] shapes;
+	private float[] bodies;
+	private byte[] jointTypes;
+	private boolean[] collides;
+	private boolean[] limits;
+	private int[] jointBodies;
+	private float[] joints;
+
+	// reusable
+	private BodyDef bodyDef = new BodyDef();
+	private FixtureDef fixtureDef = new FixtureDef();
+	private PolygonShape polygonShape;
+	private CircleShape circleShape;
+	private Array<Body> created = new Array<Body>();
+
+	// statistic
+	private long instantiateTime;
+
+	/**
+	 * Add a body of basic shape
+	 *
+	 * @param type:        STATIC, DYNAMIC, KINEMATIC of ObjectModel
+	 * @param shape:       CIRCLE, POLYGON of ObjectModel
+	 * @param x:           center x relative to the origin [pixel]
+	 * @param y:           center y relative to the origin [pixel]
+	 * @param angle:       unit: degree
+	 * @param boxPolygon:  size of polygon [pixel]
+	 * @param radius:      radius of circle [pixel]
+	 * @param density:     density of body
+	 * @param friction:    friction of body
+	 * @param restitution: restitution of body
+	 * @param category:    category for filter collision
+	 * @param mask:        mask for filter collision
+	 * @param user:        userData (for check collision)
+	 * @return the index of body
+	 */
+	public int addBody(byte type, byte shape, float x, float y, float angle, Vector2 boxPolygon, float radius,
+			float density, float friction, float restitution, int category, int mask, String user) {
+		bodyKinds.add(new byte[] { type, shape });
+		tags.add(user);
+		bodyValues.add(x);
+		bodyValues.add(y);
+		bodyValues.add(angle);
+		bodyValues.add(boxPolygon.x);
+		bodyValues.add(boxPolygon.y);
+		bodyValues.add(radius);
+		bodyValues.add(density);
+		bodyValues.add(friction);
+		bodyValues.add(restitution);
+		bodyValues.add(category);
+		bodyValues.add(mask);
+		compiled = false;
+		return tags.size - 1;
+	}
+
+	/**
+	 * Add a joint with one anchor (REVOLUTE, WELD)
+	 *
+	 * @param jointType: type of ObjectsJoint
+	 * @param bodyA:     index of body A
+	 * @param bodyB:     index of body B
+	 * @param x:         anchor relative to the origin [pixel]
+	 * @param y:         anchor relative to the origin [pixel]
+	 * @return the index of joint
+	 */
+	public int addJoint(byte jointType, int bodyA, int bodyB, float x, float y, boolean collideConnected) {
+		return addJoint(jointType, bodyA, bodyB, x, y, x, y, collideConnected);
+	}
+
+	/**
+	 * Add a joint with two anchors (DISTANCE, ROPE), the length is the distance
+	 * between the anchors
+	 *
+	 * @param jointType: type of ObjectsJoint
+	 * @param bodyA:     index of body A
+	 * @param bodyB:     index of body B
+	 * @return the index of joint
+	 */
+	public int addJoint(byte jointType, int bodyA, int bodyB, float anchorAX, float anchorAY, float anchorBX,
+			float anchorBY, boolean collideConnected) {
+		if (jointType != ObjectsJoint.DISTANCE && jointType != ObjectsJoint.REVOLUTE
+				&& jointType != ObjectsJoint.ROPE && jointType != ObjectsJoint.WELD) {
+			throw new IllegalArgumentException("Not supported joint type: " + jointType);
+		}
+		if (bodyA < 0 || bodyA >= tags.size || bodyB < 0 || bodyB >= tags.size || bodyA == bodyB) {
+			throw new IllegalArgumentException("Invalid bodies: " + bodyA + ", " + bodyB);
+		}
+
+		jointKinds.add(new byte[] { jointType, (byte) (collideConnected ? 1 : 0), 0 });
+		jointValues.add(bodyA);
+		jointValues.add(bodyB);
+		jointValues.add(anchorAX);
+		jointValues.add(anchorAY);
+		jointValues.add(anchorBX);
+		jointValues.add(anchorBY);
+		jointValues.add(0);
+		jointValues.add(0);
+		compiled = false;
+		return jointKinds.size - 1;
+	}
+
+	/**
+	 * Set the angle limit of a REVOLUTE joint
+	 *
+	 * @param min: unit: degree
+	 * @param max: unit: degree
+	 */
+	public void setRevoluteAngleLimit(int joint, float min, float max) {
+		jointKinds.get(joint)[2] = 1;
+		jointValues.set(joint * JOINT_VALUES + 6, min);
+		jointValues.set(joint * JOINT_VALUES + 7, max);
+		compiled = false;
+	}
+
+	/**
+	 * Compile the blueprint, it's done by the first instantiation otherwise
+	 */
+	public void compile() {
+		int bodyCount = tags.size;
+		types = new byte[bodyCount];
+		shapes = new byte[bodyCount];
+		// x, y, angle, halfWidth, halfHeight, radius in box (angle in radian)
+		bodies = new float[bodyCount * 6];
+		for (int i = 0; i < bodyCount; i++) {
+			int offset = i * BODY_VALUES;
+			types[i] = bodyKinds.get(i)[0];
+			shapes[i] = bodyKinds.get(i)[1];
+			bodies[i * 6] = BoxUtility.ConvertToBox(bodyValues.get(offset));
+			bodies[i * 6 + 1] = BoxUtility.ConvertToBox(bodyValues.get(offset + 1));
+			bodies[i * 6 + 2] = bodyValues.get(offset + 2) * MathUtils.degreesToRadians;
+			bodies[i * 6 + 3] = BoxUtility.ConvertToBox(bodyValues.get(offset + 3) / 2);
+			bodies[i * 6 + 4] = BoxUtility.ConvertToBox(bodyValues.get(offset + 4) / 2);
+			bodies[i * 6 + 5] = BoxUtility.ConvertToBox(bodyValues.get(offset + 5));
+		}
+
+		int jointCount = jointKinds.size;
+		jointTypes = new byte[jointCount];
+		collides = new boolean[jointCount];
+		limits = new boolean[jointCount];
+		jointBodies = new int[jointCount * 2];
+		// localAnchorA, localAnchorB, referenceAngle, length, lower, upper
+		joints = new float[jointCount * 8];
+		Vector2 anchor = new Vector2();
+		for (int i = 0; i < jointCount; i++) {
+			int offset = i * JOINT_VALUES;
+			byte[] kind = jointKinds.get(i);
+			int bodyA = (int) jointValues.get(offset);
+			int bodyB = (int) jointValues.get(offset + 1);
+			jointTypes[i] = kind[0];
+			collides[i] = kind[1] == 1;
+			limits[i] = kind[2] == 1;
+			jointBodies[i * 2] = bodyA;
+			jointBodies[i * 2 + 1] = bodyB;
+
+			float anchorAX = BoxUtility.ConvertToBox(jointValues.get(offset + 2));
+			float anchorAY = BoxUtility.ConvertToBox(jointValues.get(offset + 3));
+			float anchorBX = BoxUtility.ConvertToBox(jointValues.get(offset + 4));
+			float anchorBY = BoxUtility.ConvertToBox(jointValues.get(offset + 5));
+
+			// the local anchors don't depend on the instance's transform
+			toLocal(bodyA, anchor.set(anchorAX, anchorAY));
+			joints[i * 8] = anchor.x;
+			joints[i * 8 + 1] = anchor.y;
+			toLocal(bodyB, anchor.set(anchorBX, anchorBY));
+			joints[i * 8 + 2] = anchor.x;
+			joints[i * 8 + 3] = anchor.y;
+			joints[i * 8 + 4] = bodies[bodyB * 6 + 2] - bodies[bodyA * 6 + 2];
+			joints[i * 8 + 5] = (float) Math.sqrt((anchorBX - anchorAX) * (anchorBX - anchorAX)
+					+ (anchorBY - anchorAY) * (anchorBY - anchorAY));
+			joints[i * 8 + 6] = jointValues.get(offset + 6) * MathUtils.degreesToRadians;
+			joints[i * 8 + 7] = jointValues.get(offset + 7) * MathUtils.degreesToRadians;
+		}
+
+		compiled = true;
+	}
+
+	/**
+	 * Create an instance of the blueprint. Don't call it inside world.step()
+	 *
+	 * @param world:  world
+	 * @param x:      position of the origin in world [pixel]
+	 * @param y:      position of the origin in world [pixel]
+	 * @param angle:  unit: degree
+	 * @param scale:  scale of the instance
+	 * @param models: the created models are added, in the order of bodies
+	 * @param joints: the created joints are added, in the order of joints (can be
+	 *                <code>null</code>)
+	 */
+	public void instantiate(World world, float x, float y, float angle, float scale, Array<ObjectModel> models,
+			Array<ObjectsJoint> joints) {
+		if (world.isLocked()) {
+			throw new GdxRuntimeException("The world is locked, instantiate after world.step()");
+		}
+		if (!compiled) {
+			compile();
+		}
+
+		long start = System.nanoTime();
+
+		float originX = BoxUtility.ConvertToBox(x);
+		float originY = BoxUtility.ConvertToBox(y);
+		float radian = angle * MathUtils.degreesToRadians;
+		float cos = MathUtils.cos(radian);
+		float sin = MathUtils.sin(radian);
+
+		// bodies
+		created.clear();
+		int firstModel = models.size;
+		for (int i = 0; i < types.length; i++) {
+			int offset = i * 6;
+			float localX = bodies[offset] * scale;
+			float localY = bodies[offset + 1] * scale;
+
+			bodyDef.type = ObjectModel.getBodyType(types[i]);
+			bodyDef.position.set(originX + localX * cos - localY * sin, originY + localX * sin + localY * cos);
+			bodyDef.angle = bodies[offset + 2] + radian;
+			Body body = world.createBody(bodyDef);
+			body.setUserData(tags.get(i));
+
+			int valueOffset = i * BODY_VALUES;
+			fixtureDef.density = bodyValues.get(valueOffset + 6);
+			fixtureDef.friction = bodyValues.get(valueOffset + 7);
+			fixtureDef.restitution = bodyValues.get(valueOffset + 8);
+			int category = (int) bodyValues.get(valueOffset + 9);
+			int mask = (int) bodyValues.get(valueOffset + 10);
+			if (category != 0 && mask != 0) {
+				fixtureDef.filter.categoryBits = (short) category;
+				fixtureDef.filter.maskBits = (short) mask;
+			} else {
+				fixtureDef.filter.categoryBits = 0x0001;
+				fixtureDef.filter.maskBits = -1;
+			}
+
+			if (shapes[i] == ObjectModel.CIRCLE) {
+				if (circleShape == null) {
+					circleShape = new CircleShape();
+				}
+				circleShape.setRadius(bodies[offset + 5] * scale);
+				fixtureDef.shape = circleShape;
+			} else {
+				if (polygonShape == null) {
+					polygonShape = new PolygonShape();
+				}
+				polygonShape.setAsBox(bodies[offset + 3] * scale, bodies[offset + 4] * scale);
+				fixtureDef.shape = polygonShape;
+			}
+			body.createFixture(fixtureDef);
+			created.add(body);
+
+			models.add(new ObjectModel(body,
+					new Vector2(bodyValues.get(valueOffset + 3) * scale, bodyValues.get(valueOffset + 4) * scale),
+					bodyValues.get(valueOffset + 5) * scale));
+		}
+		fixtureDef.shape = null;
+
+		// joints
+		for (int i = 0; i < jointTypes.length; i++) {
+			Body bodyA = created.get(jointBodies[i * 2]);
+			Body bodyB = created.get(jointBodies[i * 2 + 1]);
+			int offset = i * 8;
+
+			// a new definition per joint, it's kept by the ObjectsJoint
+			JointDef def;
+			switch (jointTypes[i]) {
+			case ObjectsJoint.DISTANCE:
+				DistanceJointDef distanceJointDef = new DistanceJointDef();
+				distanceJointDef.localAnchorA.set(this.joints[offset] * scale, this.joints[offset + 1] * scale);
+				distanceJointDef.localAnchorB.set(this.joints[offset + 2] * scale, this.joints[offset + 3] * scale);
+				distanceJointDef.length = this.joints[offset + 5] * scale;
+				def = distanceJointDef;
+				break;
+			case ObjectsJoint.ROPE:
+				RopeJointDef ropeJointDef = new RopeJointDef();
+				ropeJointDef.localAnchorA.set(this.joints[offset] * scale, this.joints[offset + 1] * scale);
+				ropeJointDef.localAnchorB.set(this.joints[offset + 2] * scale, this.joints[offset + 3] * scale);
+				ropeJointDef.maxLength = this.joints[offset + 5] * scale;
+				def = ropeJointDef;
+				break;
+			case ObjectsJoint.REVOLUTE:
+				RevoluteJointDef revoluteJointDef = new RevoluteJointDef();
+				revoluteJointDef.localAnchorA.set(this.joints[offset] * scale, this.joints[offset + 1] * scale);
+				revoluteJointDef.localAnchorB.set(this.joints[offset + 2] * scale, this.joints[offset + 3] * scale);
+				revoluteJointDef.referenceAngle = this.joints[offset + 4];
+				revoluteJointDef.enableLimit = limits[i];
+				revoluteJointDef.lowerAngle = this.joints[offset + 6];
+				revoluteJointDef.upperAngle = this.joints[offset + 7];
+				def = revoluteJointDef;
+				break;
+			default:
+				WeldJointDef weldJointDef = new WeldJointDef();
+				weldJointDef.localAnchorA.set(this.joints[offset] * scale, this.joints[offset + 1] * scale);
+				weldJointDef.localAnchorB.set(this.joints[offset + 2] * scale, this.joints[offset + 3] * scale);
+				weldJointDef.referenceAngle = this.joints[offset + 4];
+				def = weldJointDef;
+				break;
+			}
+			def.bodyA = bodyA;
+			def.bodyB = bodyB;
+			def.collideConnected = collides[i];
+			Joint joint = world.createJoint(def);
+
+			if (joints != null) {
+				joints.add(new ObjectsJoint(joint, def, jointTypes[i], models.get(firstModel + jointBodies[i * 2]),
+						models.get(firstModel + jointBodies[i * 2 + 1])));
+			}
+		}
+		created.clear();
+
+		instantiateTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Retrieve the number of bodies
+	 */
+	public int getBodyCount() {
+		return tags.size;
+	}
+
+	/**
+	 * Retrieve the number of joints
+	 */
+	public int getJointCount() {
+		return jointKinds.size;
+	}
+
+	/**
+	 * Retrieve the time of the last instantiation, unit: nanosecond
+	 */
+	public long getInstantiateTime() {
+		return instantiateTime;
+	}
+
+	/**
+	 * Dispose the reused shapes
+	 */
+	public void dispose() {
+		if (polygonShape != null) {
+			polygonShape.dispose();
+			polygonShape = null;
+		}
+		if (circleShape != null) {
+			circleShape.dispose();
+			circleShape = null;
+		}
+	}
+
+	/**
+	 * Blueprint of a rope: the segments are horizontal from the origin, linked
+	 * by revolute joints at their ends
+	 *
+	 * @param segments: number of segments
+	 * @param size:     size of a segment [pixel]
+	 * @param density:  density of segments
+	 * @param friction: friction of segments
+	 * @param category: category for filter collision
+	 * @param mask:     mask for filter collision
+	 * @param user:     userData of segments
+	 */
+	public static Blueprint rope(int segments, Vector2 size, float density, float friction, int category, int mask,
+			String user) {
+		Blueprint blueprint = new Blueprint();
+		for (int i = 0; i < segments; i++) {
+			blueprint.addBody(ObjectModel.DYNAMIC, ObjectModel.POLYGON, size.x * i + size.x / 2, 0, 0, size, 0,
+					density, friction, 0, category, mask, user);
+			if (i > 0) {
+				blueprint.addJoint(ObjectsJoint.REVOLUTE, i - 1, i, size.x * i, 0, false);
+			}
+		}
+		return blueprint;
+	}
+
+	// Convert the point of blueprint to the local point of body
+	private void toLocal(int body, Vector2 point) {
+		point.sub(bodies[body * 6], bodies[body * 6 + 1]).rotate(-bodies[body * 6 + 2] * MathUtils.radiansToDegrees);
+	}
+}
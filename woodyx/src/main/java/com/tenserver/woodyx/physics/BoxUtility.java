@@ -35,6 +35,8 @@ import com.badlogic.gdx.physics.box2d.joints.MouseJoint;
 import com.badlogic.gdx.physics.box2d.joints.MouseJointDef;
 
 /**
+ * Box2D helpers. The touch functions drag only one body at a time, for many
+ * pointers use {@link PickingService}
  * 
  * @author kong
  *
@@ -56,6 +58,7 @@ public class BoxUtility {
 	private static MouseJoint mouseJoint;
 
 	private static Vector2 target = new Vector2();
+	private static MouseJointDef mouseJointDef = new MouseJointDef();
 
 	/**
 	 * Convert from world to box
@@ -72,7 +75,7 @@ public class BoxUtility {
 	}
 
 	/**
-	 * Detect the collision
+	 * Detect the collision, for many pairs of objects use {@link ContactRouter}
 	 */
 	public static boolean detectCollision(Contact contact, String objectA, String objectB) {
 		if ((contact.getFixtureA().getBody().getUserData().equals(objectA)
@@ -150,15 +153,7 @@ public class BoxUtility {
 				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
 
 		if (hitBody != null && hitBody.getUserData() != notTouch) {
-			MouseJointDef def = new MouseJointDef();
-			def.bodyA = groundModel.getBody();
-			def.bodyB = hitBody;
-			def.collideConnected = true;
-			def.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
-			def.maxForce = maxForce * hitBody.getMass();
-
-			mouseJoint = (MouseJoint) world.createJoint(def);
-			hitBody.setAwake(true);
+			createMouseJoint(world, groundModel, maxForce);
 		}
 	}
 
@@ -174,15 +169,7 @@ public class BoxUtility {
 				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
 
 		if (hitBody != null && hitBody.getUserData().equals(touchedObject)) {
-			MouseJointDef def = new MouseJointDef();
-			def.bodyA = groundModel.getBody();
-			def.bodyB = hitBody;
-			def.collideConnected = true;
-			def.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
-			def.maxForce = 1000 * hitBody.getMass();
-
-			mouseJoint = (MouseJoint) world.createJoint(def);
-			hitBody.setAwake(true);
+			createMouseJoint(world, groundModel, 1000);
 			return true;
 		}
 		return false;
@@ -200,15 +187,7 @@ public class BoxUtility {
 				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
 
 		if (hitBody != null && hitBody.getUserData().equals(touchedObject.getBody().getUserData())) {
-			MouseJointDef def = new MouseJointDef();
-			def.bodyA = groundModel.getBody();
-			def.bodyB = hitBody;
-			def.collideConnected = true;
-			def.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
-			def.maxForce = 1000 * hitBody.getMass();
-
-			mouseJoint = (MouseJoint) world.createJoint(def);
-			hitBody.setAwake(true);
+			createMouseJoint(world, groundModel, 1000);
 			return true;
 		}
 		return false;
@@ -226,15 +205,7 @@ public class BoxUtility {
 				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
 
 		if (hitBody != null && hitBody.equals(touchedObject.getBody())) {
-			MouseJointDef def = new MouseJointDef();
-			def.bodyA = groundModel.getBody();
-			def.bodyB = hitBody;
-			def.collideConnected = true;
-			def.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
-			def.maxForce = maxForce * hitBody.getMass();
-
-			mouseJoint = (MouseJoint) world.createJoint(def);
-			hitBody.setAwake(true);
+			createMouseJoint(world, groundModel, maxForce);
 			return true;
 		}
 		return false;
@@ -252,20 +223,60 @@ public class BoxUtility {
 				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
 
 		if (hitBody != null) {
-			MouseJointDef def = new MouseJointDef();
-			def.bodyA = groundModel.getBody();
-			def.bodyB = hitBody;
-			def.collideConnected = true;
-			def.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
-			def.maxForce = maxForce * hitBody.getMass();
-
-			mouseJoint = (MouseJoint) world.createJoint(def);
-			hitBody.setAwake(true);
+			createMouseJoint(world, groundModel, maxForce);
+			return (String) hitBody.getUserData();
+		}
+		return null;
+	}
+
+	/**
+	 * Query the body at the point in world, no camera is needed
+	 * 
+	 * @param x:     x in world [pixel]
+	 * @param y:     y in world [pixel]
+	 * @param world: world
+	 * @return the body or <code>null</code>
+	 */
+	public static Body queryBody(World world, float x, float y) {
+		testPoint.set(x, y, 0);
+
+		hitBody = null;
+		world.QueryAABB(callback, ConvertToBox(testPoint.x) - 0.0001f, ConvertToBox(testPoint.y) - 0.0001f,
+				ConvertToBox(testPoint.x) + 0.0001f, ConvertToBox(testPoint.y) + 0.0001f);
+
+		return hitBody;
+	}
+
+	/**
+	 * The Touch Object at the point in world, no camera is needed
+	 * 
+	 * @param x:           x in world [pixel]
+	 * @param y:           y in world [pixel]
+	 * @param world:       world
+	 * @param groundModel: ground model in the world
+	 * @param maxForce:    the maximum constraint force (multiplier of mass)
+	 * @return the user data of touched body or <code>null</code>
+	 */
+	public static String touchObject(float x, float y, World world, ObjectModel groundModel, float maxForce) {
+		queryBody(world, x, y);
+
+		if (hitBody != null) {
+			createMouseJoint(world, groundModel, maxForce);
 			return (String) hitBody.getUserData();
 		}
 		return null;
 	}
 
+	/**
+	 * Drag the object to the point in world, no camera is needed
+	 */
+	public static void dragObject(float x, float y) {
+		if (mouseJoint != null) {
+			testPoint.set(x, y, 0);
+			mouseJoint.setTarget(target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y)));
+		}
+	}
+
 	/**
 	 * Get the test point from camera.unproject()
 	 */
@@ -273,6 +284,20 @@ public class BoxUtility {
 		return testPoint;
 	}
 
+	// Create the mouse joint between the ground and the hit body
+	private static void createMouseJoint(World world, ObjectModel groundModel, float maxForce) {
+		mouseJointDef.bodyA = groundModel.getBody();
+		mouseJointDef.bodyB = hitBody;
+		mouseJointDef.collideConnected = true;
+		mouseJointDef.target.set(ConvertToBox(testPoint.x), ConvertToBox(testPoint.y));
+		mouseJointDef.maxForce = maxForce * hitBody.getMass();
+
+		mouseJoint = (MouseJoint) world.createJoint(mouseJointDef);
+		mouseJointDef.bodyA = null;
+		mouseJointDef.bodyB = null;
+		hitBody.setAwake(true);
+	}
+
 	/**
 	 * Release the object
 	 */
@@ -0,0 +1,292 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Record the changes of the world which are not allowed inside world.step()
+ * (e.g. in contact callbacks) and apply them after the step. Destroying the
+ * same model or joint many times is merged into one
+ *
+ * @author kong
+ *
+ */
+public class CommandBuffer {
+	public static final byte CREATE = 0;
+	public static final byte CREATE_JOINT = 1;
+	public static final byte SET_TRANSFORM = 2;
+	public static final byte APPLY_IMPULSE = 3;
+
+	private static final int PARAMS = 3;
+	private static final int DEFAULT_CAPACITY = 64;
+
+	// commands
+	private byte[] types;
+	private Object[] targets;
+	private float[] params;
+	private int size;
+
+	// pending destroys
+	private ObjectSet<Object> destroys;
+	private Array<ObjectsJoint> jointDestroys;
+	private Array<ObjectModel> modelDestroys;
+
+	// statistic
+	private long flushTime;
+	private int flushCount;
+	private int mergedCount;
+
+	/**
+	 * Create something in the world, called while flushing
+	 */
+	public interface Creator {
+		public void create(World world);
+	}
+
+	public CommandBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public CommandBuffer(int capacity) {
+		types = new byte[capacity];
+		targets = new Object[capacity];
+		params = new float[capacity * PARAMS];
+		size = 0;
+
+		destroys = new ObjectSet<Object>();
+		jointDestroys = new Array<ObjectsJoint>();
+		modelDestroys = new Array<ObjectModel>();
+	}
+
+	/**
+	 * Create something after the step (model, joint...)
+	 */
+	public void create(Creator creator) {
+		add(CREATE, creator, 0, 0, 0);
+	}
+
+	/**
+	 * Create the joint again from its definition, the definition must be
+	 * complete (see {@link ObjectsJoint#hasDefinition()}). It's skipped if a body
+	 * of the joint is destroyed before flushing
+	 */
+	public void createJoint(ObjectsJoint joint) {
+		if (!joint.hasDefinition()) {
+			throw new IllegalArgumentException("The joint has no complete definition, it can't be created again");
+		}
+		add(CREATE_JOINT, joint, 0, 0, 0);
+	}
+
+	/**
+	 * Move the model, the same as {@link ObjectModel#reset(Vector2, float)}
+	 *
+	 * @param x:     x in world [pixel], the bottom left corner for the basic shape
+	 * @param y:     y in world [pixel], the bottom left corner for the basic shape
+	 * @param angle: unit: degree
+	 */
+	public void setTransform(ObjectModel model, float x, float y, float angle) {
+		add(SET_TRANSFORM, model, model.toBoxX(x), model.toBoxY(y), angle * MathUtils.degreesToRadians);
+	}
+
+	/**
+	 * Apply the linear impulse to the model's center
+	 */
+	public void applyImpulse(ObjectModel model, float impulseX, float impulseY) {
+		add(APPLY_IMPULSE, model, impulseX, impulseY, 0);
+	}
+
+	/**
+	 * Destroy the model, destroying it again before flushing is ignored
+	 */
+	public void destroy(ObjectModel model) {
+		if (destroys.contains(model)) {
+			mergedCount++;
+			return;
+		}
+		destroys.add(model);
+		modelDestroys.add(model);
+	}
+
+	/**
+	 * Destroy the joint, destroying it again before flushing is ignored
+	 */
+	public void destroy(ObjectsJoint joint) {
+		if (destroys.contains(joint)) {
+			mergedCount++;
+			return;
+		}
+		destroys.add(joint);
+		jointDestroys.add(joint);
+	}
+
+	/**
+	 * Check if the model or joint will be destroyed
+	 */
+	public boolean isDestroying(Object target) {
+		return destroys.contains(target);
+	}
+
+	/**
+	 * Apply all commands, after world.step(). The commands of destroyed targets
+	 * are skipped, joints are destroyed before bodies
+	 *
+	 * @return the number of applied commands
+	 */
+	public int flush(World world) {
+		if (world.isLocked()) {
+			throw new GdxRuntimeException("The world is locked, flush after world.step()");
+		}
+
+		long start = System.nanoTime();
+		int count = 0;
+
+		for (int i = 0; i < size; i++) {
+			Object target = targets[i];
+			targets[i] = null;
+			if (destroys.contains(target)) {
+				continue;
+			}
+
+			int offset = i * PARAMS;
+			switch (types[i]) {
+			case CREATE:
+				((Creator) target).create(world);
+				break;
+			case CREATE_JOINT:
+				if (((ObjectsJoint) target).hasBodies()) {
+					((ObjectsJoint) target).createJoint(world);
+				}
+				break;
+			case SET_TRANSFORM:
+				Body body = ((ObjectModel) target).getBody();
+				if (body != null) {
+					body.setTransform(params[offset], params[offset + 1], params[offset + 2]);
+					body.setAwake(true);
+				}
+				break;
+			case APPLY_IMPULSE:
+				body = ((ObjectModel) target).getBody();
+				if (body != null) {
+					body.applyLinearImpulse(params[offset], params[offset + 1], body.getWorldCenter().x,
+							body.getWorldCenter().y, true);
+				}
+				break;
+			}
+			count++;
+		}
+		size = 0;
+
+		// joints first, destroying a body destroys its joints too
+		for (int i = 0; i < jointDestroys.size; i++) {
+			jointDestroys.get(i).dispose(world);
+		}
+		for (int i = 0; i < modelDestroys.size; i++) {
+			modelDestroys.get(i).dispose(world);
+		}
+		count += jointDestroys.size + modelDestroys.size;
+		jointDestroys.clear();
+		modelDestroys.clear();
+		destroys.clear();
+
+		flushCount = count;
+		flushTime = System.nanoTime() - start;
+		return count;
+	}
+
+	/**
+	 * Drop all commands
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			targets[i] = null;
+		}
+		size = 0;
+		jointDestroys.clear();
+		modelDestroys.clear();
+		destroys.clear();
+	}
+
+	/**
+	 * Retrieve the number of pending commands
+	 */
+	public int size() {
+		return size + jointDestroys.size + modelDestroys.size;
+	}
+
+	/**
+	 * Retrieve the time of the last flush, unit: nanosecond
+	 */
+	public long getFlushTime() {
+		return flushTime;
+	}
+
+	/**
+	 * Retrieve the number of commands applied by the last flush
+	 */
+	public int getFlushCount() {
+		return flushCount;
+	}
+
+	/**
+	 * Retrieve the number of merged destroys since the creation
+	 */
+	public int getMergedCount() {
+		return mergedCount;
+	}
+
+	// Record a command
+	private void add(byte type, Object target, float param0, float param1, float param2) {
+		if (size == types.length) {
+			resize(Math.max(DEFAULT_CAPACITY, size * 2));
+		}
+		types[size] = type;
+		targets[size] = target;
+		params[size * PARAMS] = param0;
+		params[size * PARAMS + 1] = param1;
+		params[size * PARAMS + 2] = param2;
+		size++;
+	}
+
+	// Resize the arrays
+	private void resize(int capacity) {
+		byte[] newTypes = new byte[capacity];
+		System.arraycopy(types, 0, newTypes, 0, size);
+		types = newTypes;
+
+		Object[] newTargets = new Object[capacity];
+		System.arraycopy(targets, 0, newTargets, 0, size);
+		targets = newTargets;
+
+		float[] newParams = new float[capacity * PARAMS];
+		System.arraycopy(params, 0, newParams, 0, size * PARAMS);
+		params = newParams;
+	}
+}
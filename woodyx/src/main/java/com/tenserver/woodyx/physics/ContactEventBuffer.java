@@ -0,0 +1,311 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Record the contact events into a preallocated ring buffer during
+ * world.step(), the game logic drains them after the step. Only primitive
+ * records are written inside the callbacks so the time in the step stays
+ * small. When the buffer is full the new events are dropped and counted
+ * <p>
+ * The events keep the models of the bodies (registered by
+ * {@link #add(ObjectModel)}) and the user tags captured at the event time, not
+ * the bodies: the bodies may be destroyed (destroying a body fires END
+ * synchronously) and their Java objects reused by the world before the drain.
+ * Use {@link #discard(ObjectModel)} to drop the pending events of a destroyed
+ * model
+ *
+ * @author kong
+ *
+ */
+public class ContactEventBuffer implements ContactListener {
+	public static final byte BEGIN = 0;
+	public static final byte END = 1;
+	public static final byte IMPULSE = 2;
+
+	// a discarded record, skipped by the drain
+	private static final byte DISCARDED = -1;
+
+	// records
+	private final int capacity;
+	private final byte[] types;
+	private final ObjectModel[] modelsA;
+	private final ObjectModel[] modelsB;
+	private final Object[] usersA;
+	private final Object[] usersB;
+	private final short[] categoriesA;
+	private final short[] categoriesB;
+	private final float[] normalsX;
+	private final float[] normalsY;
+	private final float[] impulses;
+
+	private int head;
+	private int size;
+	private int dropped;
+
+	// impulse events are recorded from this impulse, disabled if it's negative
+	private float impulseThreshold;
+
+	// the registered models by their bodies
+	private ObjectMap<Body, ObjectModel> models;
+
+	/**
+	 * Handle the drained events
+	 */
+	public interface ContactEventHandler {
+		/**
+		 * @param type:      BEGIN, END or IMPULSE
+		 * @param modelA:    model of fixture A's body, <code>null</code> if it's
+		 *                   not registered
+		 * @param modelB:    model of fixture B's body, <code>null</code> if it's
+		 *                   not registered
+		 * @param userA:     user data of fixture A, or of its body (the tag)
+		 * @param userB:     user data of fixture B, or of its body (the tag)
+		 * @param categoryA: category bits of fixture A
+		 * @param categoryB: category bits of fixture B
+		 * @param normalX:   normal of the contact (from A to B), 0 for END
+		 * @param normalY:   normal of the contact (from A to B), 0 for END
+		 * @param impulse:   the maximum normal impulse, only for IMPULSE
+		 */
+		public void onEvent(byte type, ObjectModel modelA, ObjectModel modelB, Object userA, Object userB,
+				short categoryA, short categoryB, float normalX, float normalY, float impulse);
+	}
+
+	/**
+	 * @param capacity: the maximum events between two drains
+	 */
+	public ContactEventBuffer(int capacity) {
+		this.capacity = capacity;
+		types = new byte[capacity];
+		modelsA = new ObjectModel[capacity];
+		modelsB = new ObjectModel[capacity];
+		usersA = new Object[capacity];
+		usersB = new Object[capacity];
+		categoriesA = new short[capacity];
+		categoriesB = new short[capacity];
+		normalsX = new float[capacity];
+		normalsY = new float[capacity];
+		impulses = new float[capacity];
+
+		head = 0;
+		size = 0;
+		dropped = 0;
+		impulseThreshold = -1;
+		models = new ObjectMap<Body, ObjectModel>();
+	}
+
+	/**
+	 * Register the model, its events carry it
+	 */
+	public void add(ObjectModel model) {
+		models.put(model.getBody(), model);
+	}
+
+	/**
+	 * Unregister the model, before destroying its body
+	 */
+	public void remove(ObjectModel model) {
+		if (model.getBody() != null && models.get(model.getBody()) == model) {
+			models.remove(model.getBody());
+		}
+	}
+
+	/**
+	 * Record the impulse events whose normal impulse reaches the threshold, a
+	 * negative value disables them (default)
+	 */
+	public void setImpulseThreshold(float impulseThreshold) {
+		this.impulseThreshold = impulseThreshold;
+	}
+
+	@Override
+	public void beginContact(Contact contact) {
+		Vector2 normal = contact.getWorldManifold().getNormal();
+		record(BEGIN, contact, normal.x, normal.y, 0);
+	}
+
+	@Override
+	public void endContact(Contact contact) {
+		record(END, contact, 0, 0, 0);
+	}
+
+	@Override
+	public void preSolve(Contact contact, Manifold oldManifold) {
+	}
+
+	@Override
+	public void postSolve(Contact contact, ContactImpulse impulse) {
+		if (impulseThreshold < 0) {
+			return;
+		}
+
+		float[] normalImpulses = impulse.getNormalImpulses();
+		float maxImpulse = 0;
+		for (int i = 0; i < impulse.getCount(); i++) {
+			if (normalImpulses[i] > maxImpulse) {
+				maxImpulse = normalImpulses[i];
+			}
+		}
+
+		if (maxImpulse >= impulseThreshold) {
+			Vector2 normal = contact.getWorldManifold().getNormal();
+			record(IMPULSE, contact, normal.x, normal.y, maxImpulse);
+		}
+	}
+
+	/**
+	 * Pass all recorded events to the handler and clear the buffer
+	 *
+	 * @return the number of drained events
+	 */
+	public int drain(ContactEventHandler handler) {
+		int count = 0;
+		int tail = (head - size + capacity) % capacity;
+		for (int i = 0; i < size; i++) {
+			int index = (tail + i) % capacity;
+			if (types[index] != DISCARDED) {
+				handler.onEvent(types[index], modelsA[index], modelsB[index], usersA[index], usersB[index],
+						categoriesA[index], categoriesB[index], normalsX[index], normalsY[index], impulses[index]);
+				count++;
+			}
+			clearRecord(index);
+		}
+		size = 0;
+		return count;
+	}
+
+	/**
+	 * Drop the pending events of the model, e.g. before destroying its body
+	 *
+	 * @return the number of dropped events
+	 */
+	public int discard(ObjectModel model) {
+		int count = 0;
+		int tail = (head - size + capacity) % capacity;
+		for (int i = 0; i < size; i++) {
+			int index = (tail + i) % capacity;
+			if (types[index] != DISCARDED && (modelsA[index] == model || modelsB[index] == model)) {
+				types[index] = DISCARDED;
+				clearRecord(index);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Drop all recorded events
+	 */
+	public void clear() {
+		for (int i = 0; i < capacity; i++) {
+			clearRecord(i);
+		}
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Retrieve the number of recorded events, with the discarded ones
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the number of dropped events since the creation
+	 */
+	public int getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Retrieve the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// Write a record
+	private void record(byte type, Contact contact, float normalX, float normalY, float impulse) {
+		if (size == capacity) {
+			dropped++;
+			return;
+		}
+
+		Fixture fixtureA = contact.getFixtureA();
+		Fixture fixtureB = contact.getFixtureB();
+
+		int index = head;
+		types[index] = type;
+		modelsA[index] = getModel(fixtureA.getBody());
+		modelsB[index] = getModel(fixtureB.getBody());
+		usersA[index] = getUser(fixtureA);
+		usersB[index] = getUser(fixtureB);
+		categoriesA[index] = fixtureA.getFilterData().categoryBits;
+		categoriesB[index] = fixtureB.getFilterData().categoryBits;
+		normalsX[index] = normalX;
+		normalsY[index] = normalY;
+		impulses[index] = impulse;
+
+		head = (head + 1) % capacity;
+		size++;
+	}
+
+	// The registered model of the body, a destroyed model is unregistered
+	private ObjectModel getModel(Body body) {
+		ObjectModel model = models.get(body);
+		if (model != null && model.getBody() != body) {
+			// the body was destroyed without remove(), its object is reused
+			models.remove(body);
+			return null;
+		}
+		return model;
+	}
+
+	// Release the references of the record
+	private void clearRecord(int index) {
+		modelsA[index] = null;
+		modelsB[index] = null;
+		usersA[index] = null;
+		usersB[index] = null;
+	}
+
+	// The user data of fixture (e.g. merged geometry) or its body
+	private Object getUser(Fixture fixture) {
+		Object user = fixture.getUserData();
+		if (user == null) {
+			user = fixture.getBody().getUserData();
+		}
+		return user;
+	}
+}
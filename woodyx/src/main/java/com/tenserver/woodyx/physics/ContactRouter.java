@@ -0,0 +1,231 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Route the contacts to the handlers by the user data of fixtures, or of their
+ * bodies if the fixture has no user data. Each user tag is interned to a small
+ * id, the handler of a pair (A, B) is kept in a table so one contact costs one
+ * lookup instead of the chain of
+ * {@link BoxUtility#detectCollision(Contact, String, String)}
+ *
+ * @author kong
+ *
+ */
+public class ContactRouter implements ContactListener {
+	public static final byte BEGIN = 0;
+	public static final byte END = 1;
+
+	private static final int PHASES = 2;
+	private static final int DEFAULT_CAPACITY = 8;
+
+	// user tag -> id
+	private ObjectIntMap<Object> tagIds;
+
+	// handlers[phase][idA * capacity + idB]
+	private ContactHandler[][] handlers;
+	private boolean[][] swapped;
+	private int capacity;
+
+	/**
+	 * Handle the contact of a pair
+	 */
+	public interface ContactHandler {
+		/**
+		 * @param contact:  the current contact
+		 * @param fixtureA: the fixture has the first tag of the registered pair
+		 * @param fixtureB: the fixture has the second tag of the registered pair
+		 */
+		public void onContact(Contact contact, Fixture fixtureA, Fixture fixtureB);
+	}
+
+	public ContactRouter() {
+		tagIds = new ObjectIntMap<Object>();
+		capacity = DEFAULT_CAPACITY;
+		handlers = new ContactHandler[PHASES][capacity * capacity];
+		swapped = new boolean[PHASES][capacity * capacity];
+	}
+
+	/**
+	 * Intern the user tag, retrieve its id
+	 */
+	public int intern(String tag) {
+		int id = tagIds.get(tag, -1);
+		if (id < 0) {
+			id = tagIds.size;
+			tagIds.put(tag, id);
+			if (id >= capacity) {
+				grow(capacity * 2);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Intern the user tag of the model, retrieve its id
+	 */
+	public int intern(ObjectModel model) {
+		return intern((String) model.getBody().getUserData());
+	}
+
+	/**
+	 * Retrieve the id of the user tag, -1 if the tag is not interned
+	 */
+	public int getTagId(Object tag) {
+		if (tag == null) {
+			return -1;
+		}
+		return tagIds.get(tag, -1);
+	}
+
+	/**
+	 * Register the handler for the ordered pair (A, B), the handler always
+	 * receives the fixture of A first. The pair is matched in both orders, so
+	 * (B, A) can't have another handler: registering it while (A, B) is
+	 * registered throws, unregister (A, B) first. Registering (A, B) again
+	 * replaces its handler
+	 *
+	 * @param phase:   BEGIN or END
+	 * @param tagA:    user tag of the first object
+	 * @param tagB:    user tag of the second object
+	 * @param handler: the handler, <code>null</code> to remove
+	 */
+	public void register(byte phase, String tagA, String tagB, ContactHandler handler) {
+		int idA = intern(tagA);
+		int idB = intern(tagB);
+
+		if (handler != null && handlers[phase][idA * capacity + idB] != null
+				&& swapped[phase][idA * capacity + idB]) {
+			throw new IllegalArgumentException("The pair (" + tagB + ", " + tagA
+					+ ") is already registered, unregister it before registering (" + tagA + ", " + tagB + ")");
+		}
+
+		handlers[phase][idA * capacity + idB] = handler;
+		swapped[phase][idA * capacity + idB] = false;
+		if (idA != idB) {
+			handlers[phase][idB * capacity + idA] = handler;
+			swapped[phase][idB * capacity + idA] = true;
+		}
+	}
+
+	/**
+	 * Remove the handler of the pair (A, B), in both orders
+	 */
+	public void unregister(byte phase, String tagA, String tagB) {
+		register(phase, tagA, tagB, null);
+	}
+
+	/**
+	 * Remove all handlers, the interned tags are kept
+	 */
+	public void clear() {
+		for (int phase = 0; phase < PHASES; phase++) {
+			for (int i = 0; i < handlers[phase].length; i++) {
+				handlers[phase][i] = null;
+				swapped[phase][i] = false;
+			}
+		}
+	}
+
+	@Override
+	public void beginContact(Contact contact) {
+		dispatch(BEGIN, contact);
+	}
+
+	@Override
+	public void endContact(Contact contact) {
+		dispatch(END, contact);
+	}
+
+	@Override
+	public void preSolve(Contact contact, Manifold oldManifold) {
+	}
+
+	@Override
+	public void postSolve(Contact contact, ContactImpulse impulse) {
+	}
+
+	/**
+	 * Dispatch the contact to its handler
+	 *
+	 * @return <code>true</code> if the contact was handled
+	 */
+	public boolean dispatch(byte phase, Contact contact) {
+		Fixture fixtureA = contact.getFixtureA();
+		Fixture fixtureB = contact.getFixtureB();
+
+		int idA = getTagId(getTag(fixtureA));
+		if (idA < 0) {
+			return false;
+		}
+		int idB = getTagId(getTag(fixtureB));
+		if (idB < 0) {
+			return false;
+		}
+
+		int index = idA * capacity + idB;
+		ContactHandler handler = handlers[phase][index];
+		if (handler == null) {
+			return false;
+		}
+
+		if (swapped[phase][index]) {
+			handler.onContact(contact, fixtureB, fixtureA);
+		} else {
+			handler.onContact(contact, fixtureA, fixtureB);
+		}
+		return true;
+	}
+
+	// The tag of fixture (e.g. merged geometry) or its body
+	private Object getTag(Fixture fixture) {
+		Object tag = fixture.getUserData();
+		if (tag == null) {
+			tag = fixture.getBody().getUserData();
+		}
+		return tag;
+	}
+
+	// Grow the dispatch table, keep the registered handlers
+	private void grow(int newCapacity) {
+		for (int phase = 0; phase < PHASES; phase++) {
+			ContactHandler[] newHandlers = new ContactHandler[newCapacity * newCapacity];
+			boolean[] newSwapped = new boolean[newCapacity * newCapacity];
+			for (int a = 0; a < capacity; a++) {
+				System.arraycopy(handlers[phase], a * capacity, newHandlers, a * newCapacity, capacity);
+				System.arraycopy(swapped[phase], a * capacity, newSwapped, a * newCapacity, capacity);
+			}
+			handlers[phase] = newHandlers;
+			swapped[phase] = newSwapped;
+		}
+		capacity = newCapacity;
+	}
+}
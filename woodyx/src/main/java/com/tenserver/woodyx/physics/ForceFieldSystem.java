@@ -0,0 +1,373 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Apply the forces of many fields (wind, attractors, water...) to the
+ * registered models, once before each step. The fields are stored in
+ * primitive arrays, the models outside all fields are culled, nothing is
+ * allocated while applying
+ * <ul>
+ * <li>DIRECTIONAL: a constant acceleration, e.g. wind or the balloon style</li>
+ * <li>RADIAL: an acceleration to the center, decreases to 0 at the radius,
+ * negative strength pushes away</li>
+ * <li>BUOYANCY: cancels the gravity by the strength (1 = floating) under the
+ * top of its bounds, with a linear drag</li>
+ * <li>DRAG: a linear drag</li>
+ * </ul>
+ * All values are in box, the forces are multiplied by the body's mass
+ *
+ * @author kong
+ *
+ */
+public class ForceFieldSystem {
+	public static final byte DIRECTIONAL = 0;
+	public static final byte RADIAL = 1;
+	public static final byte BUOYANCY = 2;
+	public static final byte DRAG = 3;
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	// fields: bounds[id * 4] = minX, minY, maxX, maxY, params[id * 2]
+	private byte[] types;
+	private float[] bounds;
+	private float[] params;
+	private short[] masks;
+	private boolean[] enabled;
+	private int size;
+
+	// union of the enabled fields
+	private float minX, minY, maxX, maxY;
+	private boolean dirty;
+
+	private Array<ObjectModel> models;
+
+	// statistic
+	private int affectedCount;
+	private int culledCount;
+	private long applyTime;
+
+	public ForceFieldSystem() {
+		types = new byte[DEFAULT_CAPACITY];
+		bounds = new float[DEFAULT_CAPACITY * 4];
+		params = new float[DEFAULT_CAPACITY * 2];
+		masks = new short[DEFAULT_CAPACITY];
+		enabled = new boolean[DEFAULT_CAPACITY];
+		size = 0;
+		dirty = true;
+		models = new Array<ObjectModel>(false, 64);
+	}
+
+	/**
+	 * Add a constant acceleration in the bounds. For the balloon style use
+	 * (against - gravity)
+	 *
+	 * @param mask: the category bits which are affected
+	 * @return the id of field
+	 */
+	public int addDirectional(float minX, float minY, float maxX, float maxY, float accelerationX,
+			float accelerationY, short mask) {
+		return add(DIRECTIONAL, minX, minY, maxX, maxY, accelerationX, accelerationY, mask);
+	}
+
+	/**
+	 * Add an attractor
+	 *
+	 * @param strength: the acceleration at the center, negative pushes away
+	 * @param mask:     the category bits which are affected
+	 * @return the id of field
+	 */
+	public int addRadial(float centerX, float centerY, float radius, float strength, short mask) {
+		return add(RADIAL, centerX - radius, centerY - radius, centerX + radius, centerY + radius, strength, 0,
+				mask);
+	}
+
+	/**
+	 * Add a water area, the surface is the top of bounds
+	 *
+	 * @param strength: 1 cancels the gravity, more makes the bodies go up
+	 * @param drag:     the linear drag in the water
+	 * @param mask:     the category bits which are affected
+	 * @return the id of field
+	 */
+	public int addBuoyancy(float minX, float minY, float maxX, float maxY, float strength, float drag, short mask) {
+		return add(BUOYANCY, minX, minY, maxX, maxY, strength, drag, mask);
+	}
+
+	/**
+	 * Add a linear drag
+	 *
+	 * @param mask: the category bits which are affected
+	 * @return the id of field
+	 */
+	public int addDrag(float minX, float minY, float maxX, float maxY, float drag, short mask) {
+		return add(DRAG, minX, minY, maxX, maxY, drag, 0, mask);
+	}
+
+	/**
+	 * Change the parameters of field, e.g. the direction of wind
+	 */
+	public void setParams(int field, float param0, float param1) {
+		params[field * 2] = param0;
+		params[field * 2 + 1] = param1;
+	}
+
+	/**
+	 * Move the field
+	 */
+	public void setBounds(int field, float minX, float minY, float maxX, float maxY) {
+		int offset = field * 4;
+		bounds[offset] = minX;
+		bounds[offset + 1] = minY;
+		bounds[offset + 2] = maxX;
+		bounds[offset + 3] = maxY;
+		dirty = true;
+	}
+
+	/**
+	 * Enable or disable the field
+	 */
+	public void setEnabled(int field, boolean enabled) {
+		this.enabled[field] = enabled;
+		dirty = true;
+	}
+
+	/**
+	 * Check if the field is enabled
+	 */
+	public boolean isEnabled(int field) {
+		return enabled[field];
+	}
+
+	/**
+	 * Register the model
+	 */
+	public void add(ObjectModel model) {
+		models.add(model);
+	}
+
+	/**
+	 * Remove the model
+	 */
+	public void remove(ObjectModel model) {
+		models.removeValue(model, true);
+	}
+
+	/**
+	 * Remove all fields and models
+	 */
+	public void clear() {
+		size = 0;
+		models.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Apply the forces of the fields to the models, before each world.step()
+	 */
+	public void apply(World world) {
+		long start = System.nanoTime();
+		if (dirty) {
+			updateUnion();
+		}
+
+		affectedCount = 0;
+		culledCount = 0;
+		Vector2 gravity = world.getGravity();
+		float gravityX = gravity.x;
+		float gravityY = gravity.y;
+
+		for (int i = 0; i < models.size; i++) {
+			Body body = models.get(i).getBody();
+			if (body == null || body.getType() == BodyType.StaticBody || !body.isActive()) {
+				continue;
+			}
+
+			Vector2 position = body.getPosition();
+			float x = position.x;
+			float y = position.y;
+			if (x < minX || x > maxX || y < minY || y > maxY) {
+				culledCount++;
+				continue;
+			}
+
+			Array<Fixture> fixtures = body.getFixtureList();
+			short category = fixtures.size > 0 ? fixtures.get(0).getFilterData().categoryBits : 0;
+
+			float accelerationX = 0;
+			float accelerationY = 0;
+			Vector2 velocity = null;
+			boolean affected = false;
+
+			for (int field = 0; field < size; field++) {
+				int offset = field * 4;
+				if (!enabled[field] || (masks[field] & category) == 0 || x < bounds[offset]
+						|| y < bounds[offset + 1] || x > bounds[offset + 2] || y > bounds[offset + 3]) {
+					continue;
+				}
+
+				float param0 = params[field * 2];
+				float param1 = params[field * 2 + 1];
+				switch (types[field]) {
+				case DIRECTIONAL:
+					accelerationX += param0;
+					accelerationY += param1;
+					break;
+				case RADIAL:
+					float radius = (bounds[offset + 2] - bounds[offset]) / 2;
+					float dx = bounds[offset] + radius - x;
+					float dy = bounds[offset + 1] + radius - y;
+					float distance = (float) Math.sqrt(dx * dx + dy * dy);
+					if (distance >= radius || distance == 0) {
+						continue;
+					}
+					float scale = param0 * (1 - distance / radius) / distance;
+					accelerationX += dx * scale;
+					accelerationY += dy * scale;
+					break;
+				case BUOYANCY:
+					if (velocity == null) {
+						velocity = body.getLinearVelocity();
+					}
+					accelerationX += -gravityX * param0 - velocity.x * param1;
+					accelerationY += -gravityY * param0 - velocity.y * param1;
+					break;
+				case DRAG:
+					if (velocity == null) {
+						velocity = body.getLinearVelocity();
+					}
+					accelerationX -= velocity.x * param0;
+					accelerationY -= velocity.y * param0;
+					break;
+				}
+				affected = true;
+			}
+
+			if (affected) {
+				float mass = body.getMass();
+				body.applyForceToCenter(accelerationX * mass, accelerationY * mass, true);
+				affectedCount++;
+			} else {
+				culledCount++;
+			}
+		}
+
+		applyTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Retrieve the number of fields
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the number of models got a force in the last apply
+	 */
+	public int getAffectedCount() {
+		return affectedCount;
+	}
+
+	/**
+	 * Retrieve the number of models outside all fields in the last apply
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
+	/**
+	 * Retrieve the time of the last apply, unit: nanosecond
+	 */
+	public long getApplyTime() {
+		return applyTime;
+	}
+
+	// Record a field
+	private int add(byte type, float minX, float minY, float maxX, float maxY, float param0, float param1,
+			short mask) {
+		if (size == types.length) {
+			resize(size * 2);
+		}
+
+		int field = size;
+		types[field] = type;
+		params[field * 2] = param0;
+		params[field * 2 + 1] = param1;
+		masks[field] = mask;
+		enabled[field] = true;
+		size++;
+		setBounds(field, minX, minY, maxX, maxY);
+		return field;
+	}
+
+	// The union of the enabled fields' bounds
+	private void updateUnion() {
+		minX = Float.MAX_VALUE;
+		minY = Float.MAX_VALUE;
+		maxX = -Float.MAX_VALUE;
+		maxY = -Float.MAX_VALUE;
+		for (int field = 0; field < size; field++) {
+			if (!enabled[field]) {
+				continue;
+			}
+			int offset = field * 4;
+			minX = Math.min(minX, bounds[offset]);
+			minY = Math.min(minY, bounds[offset + 1]);
+			maxX = Math.max(maxX, bounds[offset + 2]);
+			maxY = Math.max(maxY, bounds[offset + 3]);
+		}
+		dirty = false;
+	}
+
+	// Resize the arrays
+	private void resize(int capacity) {
+		byte[] newTypes = new byte[capacity];
+		System.arraycopy(types, 0, newTypes, 0, size);
+		types = newTypes;
+
+		float[] newBounds = new float[capacity * 4];
+		System.arraycopy(bounds, 0, newBounds, 0, size * 4);
+		bounds = newBounds;
+
+		float[] newParams = new float[capacity * 2];
+		System.arraycopy(params, 0, newParams, 0, size * 2);
+		params = newParams;
+
+		short[] newMasks = new short[capacity];
+		System.arraycopy(masks, 0, newMasks, 0, size);
+		masks = newMasks;
+
+		boolean[] newEnabled = new boolean[capacity];
+		System.arraycopy(enabled, 0, newEnabled, 0, size);
+		enabled = newEnabled;
+	}
+}
@@ -0,0 +1,237 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Watch the reaction force and torque of the registered joints (breakable
+ * bridges, chains...) once after each step. The joints over their thresholds
+ * are broken: they are removed from the monitor, reported to the listener and
+ * destroyed after the scan (or queued into the command buffer if it's set)
+ * <p>
+ * A joint destroyed with one of its bodies is dropped at the next scan, destroy
+ * the bodies by {@link ObjectModel#dispose(World)} (or {@link CommandBuffer}),
+ * not by world.destroyBody(), so the joint's wrapper forgets it
+ *
+ * @author kong
+ *
+ */
+public class JointMonitor {
+	private static final int DEFAULT_CAPACITY = 32;
+
+	// registered joints, unordered
+	private Array<ObjectsJoint> joints;
+	private float[] maxForces;
+	private float[] maxTorques;
+
+	// the broken joints of the current scan
+	private Array<ObjectsJoint> broken;
+
+	private JointBreakListener listener;
+	private CommandBuffer commandBuffer;
+
+	// statistic
+	private long scanTime;
+	private int scannedCount;
+	private int brokenCount;
+
+	/**
+	 * Listen the broken joints
+	 */
+	public interface JointBreakListener {
+		/**
+		 * Called after the step, before the joint is destroyed
+		 *
+		 * @param force:  the reaction force
+		 * @param torque: the reaction torque
+		 */
+		public void onBreak(ObjectsJoint joint, float force, float torque);
+	}
+
+	public JointMonitor() {
+		joints = new Array<ObjectsJoint>(false, DEFAULT_CAPACITY);
+		maxForces = new float[DEFAULT_CAPACITY];
+		maxTorques = new float[DEFAULT_CAPACITY];
+		broken = new Array<ObjectsJoint>();
+	}
+
+	/**
+	 * Register the joint
+	 *
+	 * @param maxForce:  the joint breaks over this force, ignored if it's not
+	 *                   positive
+	 * @param maxTorque: the joint breaks over this torque, ignored if it's not
+	 *                   positive
+	 */
+	public void add(ObjectsJoint joint, float maxForce, float maxTorque) {
+		if (joints.size == maxForces.length) {
+			float[] newForces = new float[joints.size * 2];
+			System.arraycopy(maxForces, 0, newForces, 0, joints.size);
+			maxForces = newForces;
+
+			float[] newTorques = new float[joints.size * 2];
+			System.arraycopy(maxTorques, 0, newTorques, 0, joints.size);
+			maxTorques = newTorques;
+		}
+
+		// keep the squared force to avoid the square root
+		maxForces[joints.size] = maxForce > 0 ? maxForce * maxForce : -1;
+		maxTorques[joints.size] = maxTorque > 0 ? maxTorque : -1;
+		joints.add(joint);
+	}
+
+	/**
+	 * Unregister the joint
+	 */
+	public void remove(ObjectsJoint joint) {
+		int index = joints.indexOf(joint, true);
+		if (index >= 0) {
+			removeIndex(index);
+		}
+	}
+
+	/**
+	 * Unregister all joints
+	 */
+	public void clear() {
+		joints.clear();
+	}
+
+	/**
+	 * Set the listener of the broken joints, can be <code>null</code>
+	 */
+	public void setListener(JointBreakListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Queue the broken joints into the buffer instead of destroying them after
+	 * the scan, can be <code>null</code>
+	 */
+	public void setCommandBuffer(CommandBuffer commandBuffer) {
+		this.commandBuffer = commandBuffer;
+	}
+
+	/**
+	 * Scan the joints, after world.step()
+	 *
+	 * @param world:    world
+	 * @param stepTime: the time of the last step, unit: second
+	 * @return the number of broken joints
+	 */
+	public int scan(World world, float stepTime) {
+		if (world.isLocked()) {
+			throw new GdxRuntimeException("The world is locked, scan after world.step()");
+		}
+
+		long start = System.nanoTime();
+		float invStepTime = stepTime > 0 ? 1 / stepTime : 0;
+
+		scannedCount = 0;
+		broken.clear();
+		for (int i = joints.size - 1; i >= 0; i--) {
+			ObjectsJoint objectsJoint = joints.get(i);
+			Joint joint = objectsJoint.getJoint();
+			if (joint == null) {
+				// destroyed somewhere else, or with one of its bodies
+				removeIndex(i);
+				continue;
+			}
+			scannedCount++;
+
+			Vector2 reaction = joint.getReactionForce(invStepTime);
+			float force = reaction.len2();
+			boolean isBroken = maxForces[i] > 0 && force > maxForces[i];
+
+			float torque = 0;
+			if (!isBroken && maxTorques[i] > 0) {
+				torque = Math.abs(joint.getReactionTorque(invStepTime));
+				isBroken = torque > maxTorques[i];
+			}
+
+			if (isBroken) {
+				removeIndex(i);
+				broken.add(objectsJoint);
+				if (listener != null) {
+					listener.onBreak(objectsJoint, (float) Math.sqrt(force), torque);
+				}
+			}
+		}
+
+		// destroy after the scan, not while iterating
+		for (int i = 0; i < broken.size; i++) {
+			if (commandBuffer != null) {
+				commandBuffer.destroy(broken.get(i));
+			} else {
+				broken.get(i).dispose(world);
+			}
+		}
+		brokenCount = broken.size;
+		broken.clear();
+
+		scanTime = System.nanoTime() - start;
+		return brokenCount;
+	}
+
+	/**
+	 * Retrieve the number of registered joints
+	 */
+	public int size() {
+		return joints.size;
+	}
+
+	/**
+	 * Retrieve the time of the last scan, unit: nanosecond
+	 */
+	public long getScanTime() {
+		return scanTime;
+	}
+
+	/**
+	 * Retrieve the number of joints checked by the last scan
+	 */
+	public int getScannedCount() {
+		return scannedCount;
+	}
+
+	/**
+	 * Retrieve the number of joints broken by the last scan
+	 */
+	public int getBrokenCount() {
+		return brokenCount;
+	}
+
+	// Remove the joint, the last one takes its index (unordered array)
+	private void removeIndex(int index) {
+		int last = joints.size - 1;
+		maxForces[index] = maxForces[last];
+		maxTorques[index] = maxTorques[last];
+		joints.removeIndex(index);
+	}
+}
@@ -32,8 +32,11 @@ import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.JointEdge;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 
 /**
  * 
@@ -53,15 +56,33 @@ public class ObjectModel {
 	public float circleRadius;
 
 	protected Body body;
-	private BodyDef bodyDef;
-	private FixtureDef fixtureDef;
 
-	private CircleShape circleShape;
-	private PolygonShape polygonShape;
+	// shared by the models of the same material and shape
+	private PhysicsMaterial material;
+	private ShapeTemplate template;
 
-	private Vector2 bodyOrigin;
 	private boolean basicShape;
 
+	// the state before the last step (for interpolation)
+	private Vector2 previousPosition = new Vector2();
+	private float previousAngle;
+
+	// index in the TransformBuffer, -1 if it's not registered
+	private int transformIndex = -1;
+
+	// deactivated by the pool, see park()
+	private boolean parked;
+
+	// the origin of models without template
+	private static final Vector2 NO_ORIGIN = new Vector2();
+
+	// the definitions are only needed while creating, they are shared by all
+	// models (guarded by the bodyDef)
+	private static final BodyDef bodyDef = new BodyDef();
+	private static final FixtureDef fixtureDef = new FixtureDef();
+	private static CircleShape circleShape;
+	private static PolygonShape polygonShape;
+
 	/**
 	 * Model constructor for special shape
 	 * 
@@ -81,34 +102,48 @@ public class ObjectModel {
 	 */
 	public ObjectModel(World world, byte type, BodyEditorLoader loader, String name, Vector2 position, float angle,
 			float density, float friction, float restitution, float width, int category, int mask, String user) {
+		this(world, type, loader, name, position, angle, width,
+				PhysicsMaterial.obtain(density, friction, restitution, category, mask), user);
+	}
+
+	/**
+	 * Model constructor for special shape with a shared material
+	 * 
+	 * @param world:    world
+	 * @param type:     objectType (Static, Dynamic, KinemaTic) ObjectModel
+	 * @param loader:   bodyEditorLoader (file description .json's file)
+	 * @param name:     name of model in .json's file
+	 * @param position: initialize position in box
+	 * @param angle:    initialize angle in box, unit: degree
+	 * @param width:    width of mode in box
+	 * @param material: material of model
+	 * @param user:     userData (for check collision)
+	 */
+	public ObjectModel(World world, byte type, BodyEditorLoader loader, String name, Vector2 position, float angle,
+			float width, PhysicsMaterial material, String user) {
 		// flag
 		basicShape = false;
+		this.material = material;
 
-		// create a bodyDef
-		bodyDef = new BodyDef();
-		bodyDef.type = getBodyType(type);
-
-		// create a fixtureDef
-		fixtureDef = new FixtureDef();
-		fixtureDef.density = density;
-		fixtureDef.friction = friction;
-		fixtureDef.restitution = restitution;
-		if (category != 0 && mask != 0) {
-			fixtureDef.filter.categoryBits = (short) category;
-			fixtureDef.filter.maskBits = (short) mask;
-		}
+		// the cached shapes of the loader's model, its origin is the body origin
+		template = ShapeTemplateCache.obtain(loader, name, BoxUtility.ConvertToBox(width));
+
+		synchronized (bodyDef) {
+			bodyDef.type = getBodyType(type);
+			material.apply(fixtureDef);
 
-		// create the body, set position in box
-		body = world.createBody(bodyDef);
-		body.setUserData(user);
-		body.setTransform(BoxUtility.ConvertToBox(position.x), BoxUtility.ConvertToBox(position.y),
-				(angle * MathUtils.degreesToRadians));
+			// create the body, set position in box
+			body = world.createBody(bodyDef);
+			body.setUserData(user);
+			body.setTransform(BoxUtility.ConvertToBox(position.x), BoxUtility.ConvertToBox(position.y),
+					(angle * MathUtils.degreesToRadians));
 
-		// create the body fixture automatically by using the loader
-		loader.attachFixture(body, name, fixtureDef, BoxUtility.ConvertToBox(width));
+			// create the body fixture
+			template.attachFixture(body, fixtureDef);
+		}
 
-		// set the origin of body
-		bodyOrigin = loader.getOrigin(name, BoxUtility.ConvertToBox(width)).cpy();
+		// initialize the previous state
+		savePreviousTransform();
 	}
 
 	/**
@@ -130,46 +165,89 @@ public class ObjectModel {
 	 */
 	public ObjectModel(World world, byte type, byte shape, Vector2 boxPolygon, float circleRadius, Vector2 position,
 			float angle, float density, float friction, float restitution, int category, int mask, String user) {
+		this(world, type, shape, boxPolygon, circleRadius, position, angle,
+				PhysicsMaterial.obtain(density, friction, restitution, category, mask), user);
+	}
+
+	/**
+	 * Model constructor for basic shape with a shared material
+	 * 
+	 * @param world:        world
+	 * @param type:         objectType (Static, Dynamic, KinemaTic) ObjectModel
+	 * @param shape:        basic shape of model (polygon, circle)
+	 * @param boxPolygon:   set as box for polygon shape
+	 * @param circleRadius: set radius for circle shape
+	 * @param position:     initialize position in box
+	 * @param angle:        initialize angle in box, unit: degree
+	 * @param material:     material of model
+	 * @param user:         userData (for check collision)
+	 */
+	public ObjectModel(World world, byte type, byte shape, Vector2 boxPolygon, float circleRadius, Vector2 position,
+			float angle, PhysicsMaterial material, String user) {
 		// parameters
 		this.boxPolygon = boxPolygon;
 		this.circleRadius = circleRadius;
+		this.material = material;
 
 		// flag
 		basicShape = true;
 
-		// create a bodyDef
-		bodyDef = new BodyDef();
-		bodyDef.type = getBodyType(type);
-
-		// create a fixtureDef
-		fixtureDef = new FixtureDef();
-		fixtureDef.density = density;
-		fixtureDef.friction = friction;
-		fixtureDef.restitution = restitution;
-		if (category != 0 && mask != 0) {
-			fixtureDef.filter.categoryBits = (short) category;
-			fixtureDef.filter.maskBits = (short) mask;
+		synchronized (bodyDef) {
+			bodyDef.type = getBodyType(type);
+			material.apply(fixtureDef);
+
+			// create bodyShape
+			createShape(shape, boxPolygon, circleRadius);
+
+			// create model, set position in box
+			body = world.createBody(bodyDef);
+			body.setUserData(user);
+			body.createFixture(fixtureDef);
+			body.setTransform(BoxUtility.ConvertToBox(position.x + boxPolygon.x / 2),
+					BoxUtility.ConvertToBox(position.y + boxPolygon.y / 2), (angle * MathUtils.degreesToRadians));
+			fixtureDef.shape = null;
 		}
 
-		// create bodyShape
-		createShape(shape, boxPolygon, circleRadius);
+		// initialize the previous state
+		savePreviousTransform();
+	}
+
+	/**
+	 * Model for an existing body (e.g. the merged static geometry), its origin is
+	 * the body's position
+	 */
+	ObjectModel(Body body) {
+		// flag
+		basicShape = false;
+
+		this.body = body;
+
+		// initialize the previous state
+		savePreviousTransform();
+	}
+
+	/**
+	 * Model of basic shape for an existing body (e.g. created by a
+	 * {@link Blueprint}), the body's position is the center of the shape
+	 */
+	ObjectModel(Body body, Vector2 boxPolygon, float circleRadius) {
+		// parameters
+		this.boxPolygon = boxPolygon;
+		this.circleRadius = circleRadius;
 
-		// create model, set position in box
-		body = world.createBody(bodyDef);
-		body.setUserData(user);
-		body.createFixture(fixtureDef);
-		body.setTransform(BoxUtility.ConvertToBox(position.x + boxPolygon.x / 2),
-				BoxUtility.ConvertToBox(position.y + boxPolygon.y / 2), (angle * MathUtils.degreesToRadians));
+		// flag
+		basicShape = true;
 
-		// dispose shape
-		disposeShape(shape);
+		this.body = body;
 
+		// initialize the previous state
+		savePreviousTransform();
 	}
 
 	/**
 	 * Get the body type
 	 */
-	private BodyType getBodyType(byte type) {
+	static BodyType getBodyType(byte type) {
 		switch (type) {
 		case STATIC:
 			return BodyType.StaticBody;
@@ -196,50 +274,173 @@ public class ObjectModel {
 	}
 
 	/**
-	 * Get the model origin
+	 * Get the model origin, it's shared with the other models of the same shape
+	 * so don't modify it
 	 */
 	public Vector2 getBodyOrigin() {
-		return bodyOrigin;
+		if (template != null) {
+			return template.getOrigin();
+		}
+		return NO_ORIGIN;
+	}
+
+	/**
+	 * Get the material of model, <code>null</code> for the existing bodies
+	 */
+	public PhysicsMaterial getMaterial() {
+		return material;
 	}
 
 	/**
-	 * Get the circle shape in box
+	 * Get the shape template of model, <code>null</code> for the basic shapes
+	 */
+	public ShapeTemplate getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Get the circle shape in box, <code>null</code> if the model is not a
+	 * circle
 	 */
 	public CircleShape getCircleShape() {
-		return circleShape;
+		Shape shape = getFirstShape();
+		return shape instanceof CircleShape ? (CircleShape) shape : null;
 	}
 
 	/**
-	 * Get the polygon shape in box
+	 * Get the polygon shape in box, <code>null</code> if the model is not a
+	 * polygon
 	 */
 	public PolygonShape getPolygonShape() {
-		return polygonShape;
+		Shape shape = getFirstShape();
+		return shape instanceof PolygonShape ? (PolygonShape) shape : null;
+	}
+
+	// The shape of the first fixture
+	private Shape getFirstShape() {
+		if (body == null || body.getFixtureList().size == 0) {
+			return null;
+		}
+		return body.getFixtureList().get(0).getShape();
+	}
+
+	/**
+	 * Keep the current position and angle of the body as the previous state,
+	 * usually before world.step(). Don't call it after {@link #dispose(World)}
+	 */
+	public void savePreviousTransform() {
+		previousPosition.set(body.getPosition());
+		previousAngle = body.getAngle();
+	}
+
+	/**
+	 * Get the body position before the last step
+	 */
+	public Vector2 getPreviousPosition() {
+		return previousPosition;
+	}
+
+	/**
+	 * Get the body angle before the last step, unit: radian
+	 */
+	public float getPreviousAngle() {
+		return previousAngle;
+	}
+
+	/**
+	 * Get the index in the {@link TransformBuffer}, -1 if it's not registered
+	 */
+	public int getTransformIndex() {
+		return transformIndex;
+	}
+
+	/**
+	 * Set the index in the {@link TransformBuffer}
+	 */
+	void setTransformIndex(int transformIndex) {
+		this.transformIndex = transformIndex;
+	}
+
+	/**
+	 * Reset the model for reusing, the body is moved to the new position,
+	 * stopped and activated. Don't call it inside world.step()
+	 * 
+	 * @param position: position in world, the same as the constructor
+	 * @param angle:    angle in box, unit: degree
+	 */
+	public void reset(Vector2 position, float angle) {
+		body.setTransform(toBoxX(position.x), toBoxY(position.y), (angle * MathUtils.degreesToRadians));
+		body.setLinearVelocity(0, 0);
+		body.setAngularVelocity(0);
+		body.setActive(true);
+		body.setAwake(true);
+		parked = false;
+
+		// initialize the previous state
+		savePreviousTransform();
+	}
+
+	/**
+	 * Convert x in world (the same as the constructor, the bottom left corner for
+	 * the basic shape) to the body's x in box
+	 */
+	float toBoxX(float x) {
+		return BoxUtility.ConvertToBox(basicShape ? x + boxPolygon.x / 2 : x);
+	}
+
+	/**
+	 * Convert y in world (the same as the constructor, the bottom left corner for
+	 * the basic shape) to the body's y in box
+	 */
+	float toBoxY(float y) {
+		return BoxUtility.ConvertToBox(basicShape ? y + boxPolygon.y / 2 : y);
+	}
+
+	/**
+	 * Deactivate the body instead of destroying it, the body is removed from the
+	 * simulation until {@link #reset(Vector2, float)}. Don't call it inside
+	 * world.step()
+	 */
+	public void park() {
+		body.setActive(false);
+		parked = true;
+	}
+
+	/**
+	 * Check if the model is parked (deactivated by {@link ObjectModelPool})
+	 */
+	public boolean isParked() {
+		return parked;
 	}
 
 	/**
-	 * Make the balloon style for model usually before world.step()
+	 * Make the balloon style for model usually before world.step(), for many
+	 * balloons use {@link ForceFieldSystem}
 	 * 
 	 * @param gravity: gravity of the world
 	 * @param against: velocity (x, y) when the gravity is disposed
 	 */
 	public void makeBalloonStyle(Vector2 gravity, Vector2 against) {
-		body.applyForceToCenter(
-				new Vector2((-gravity.x + against.x) * body.getMass(), (-gravity.y + against.y) * body.getMass()),
+		body.applyForceToCenter((-gravity.x + against.x) * body.getMass(), (-gravity.y + against.y) * body.getMass(),
 				true);
 	}
 
 	/**
-	 * Choose the basic shape
+	 * Choose the basic shape, the shapes are reused
 	 */
-	private void createShape(byte shape, Vector2 boxPolygon, float circleRadius) {
+	private static void createShape(byte shape, Vector2 boxPolygon, float circleRadius) {
 		switch (shape) {
 		case CIRCLE:
-			circleShape = new CircleShape();
+			if (circleShape == null) {
+				circleShape = new CircleShape();
+			}
 			circleShape.setRadius(BoxUtility.ConvertToBox(circleRadius));
 			fixtureDef.shape = circleShape;
 			break;
 		case POLYGON:
-			polygonShape = new PolygonShape();
+			if (polygonShape == null) {
+				polygonShape = new PolygonShape();
+			}
 			polygonShape.setAsBox(BoxUtility.ConvertToBox(boxPolygon.x / 2), BoxUtility.ConvertToBox(boxPolygon.y / 2));
 			fixtureDef.shape = polygonShape;
 			break;
@@ -249,26 +450,21 @@ public class ObjectModel {
 	}
 
 	/**
-	 * Dispose shape
-	 */
-	private void disposeShape(byte shape) {
-		switch (shape) {
-		case CIRCLE:
-			circleShape.dispose();
-			break;
-		case POLYGON:
-			polygonShape.dispose();
-			break;
-		default:
-			break;
-		}
-	}
-
-	/**
-	 * Destroy the body
+	 * Destroy the body, the {@link ObjectsJoint}s attached to it are destroyed
+	 * too and lose their joint (getJoint() returns <code>null</code>)
 	 */
 	public void dispose(World world) {
 		if (body != null) {
+			// the joints are destroyed with the body, their wrappers must not keep
+			// them
+			Array<JointEdge> edges = body.getJointList();
+			for (int i = 0; i < edges.size; i++) {
+				Object data = edges.get(i).joint.getUserData();
+				if (data instanceof ObjectsJoint) {
+					((ObjectsJoint) data).detach();
+				}
+			}
+
 			// destroy body
 			world.destroyBody(body);
 			body = null;
@@ -0,0 +1,208 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Recycle the models instead of creating and destroying bodies. The freed
+ * models are parked (deactivated) in the pool of their template and reset
+ * when they are obtained again
+ *
+ * @author kong
+ *
+ */
+public class ObjectModelPool {
+	private World world;
+	private ObjectMap<String, Pool<ObjectModel>> pools;
+	private ObjectMap<String, ModelFactory> factories;
+
+	// statistic
+	private int hits;
+	private int misses;
+
+	/**
+	 * Create the model for a template when its pool is empty
+	 */
+	public interface ModelFactory {
+		public ObjectModel create(World world);
+	}
+
+	public ObjectModelPool(World world) {
+		this.world = world;
+		pools = new ObjectMap<String, Pool<ObjectModel>>();
+		factories = new ObjectMap<String, ModelFactory>();
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Register a template
+	 *
+	 * @param template: name of the template
+	 * @param capacity: the maximum parked models, the rest are destroyed
+	 * @param factory:  create the new model of the template
+	 */
+	public void register(String template, int capacity, final ModelFactory factory) {
+		pools.put(template, new Pool<ObjectModel>(capacity, capacity) {
+			@Override
+			protected ObjectModel newObject() {
+				return factory.create(world);
+			}
+		});
+		factories.put(template, factory);
+	}
+
+	/**
+	 * Create the parked models of the template in advance
+	 */
+	public void prefill(String template, int count) {
+		Pool<ObjectModel> pool = getPool(template);
+		ModelFactory factory = factories.get(template);
+		for (int i = pool.getFree(); i < count && i < pool.max; i++) {
+			ObjectModel model = factory.create(world);
+			model.park();
+			pool.free(model);
+		}
+	}
+
+	/**
+	 * Obtain a model of the template
+	 *
+	 * @param template: name of the template
+	 * @param position: position in world, the same as the model's constructor
+	 * @param angle:    angle in box, unit: degree
+	 */
+	public ObjectModel obtain(String template, Vector2 position, float angle) {
+		Pool<ObjectModel> pool = getPool(template);
+		if (pool.getFree() > 0) {
+			hits++;
+		} else {
+			misses++;
+		}
+		ObjectModel model = pool.obtain();
+		model.reset(position, angle);
+		return model;
+	}
+
+	/**
+	 * Give back the model to its template's pool, the body is destroyed if the
+	 * pool is full. Freeing a model again (parked or destroyed) throws. Don't call it inside
+	 * world.step()
+	 */
+	public void free(String template, ObjectModel model) {
+		if (model.isParked() || model.getBody() == null) {
+			throw new IllegalArgumentException("The model was already freed or destroyed");
+		}
+		Pool<ObjectModel> pool = getPool(template);
+		if (pool.getFree() < pool.max) {
+			model.park();
+			pool.free(model);
+		} else {
+			model.dispose(world);
+		}
+	}
+
+	/**
+	 * Destroy all parked models
+	 */
+	public void clear() {
+		Array<ObjectModel> models = new Array<ObjectModel>();
+		for (Pool<ObjectModel> pool : pools.values()) {
+			models.clear();
+			while (pool.getFree() > 0) {
+				models.add(pool.obtain());
+			}
+			for (int i = 0; i < models.size; i++) {
+				models.get(i).dispose(world);
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the number of obtains were served by a parked model
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Retrieve the number of obtains created a new model
+	 */
+	public int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Retrieve the hit rate in range [0,1]
+	 */
+	public float getHitRate() {
+		if (hits + misses == 0) {
+			return 0;
+		}
+		return (float) hits / (hits + misses);
+	}
+
+	/**
+	 * Reset the hit and miss counters
+	 */
+	public void resetStatistic() {
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Retrieve the number of parked models of the template
+	 */
+	public int getFree(String template) {
+		return getPool(template).getFree();
+	}
+
+	/**
+	 * Retrieve the highest number of parked models of the template
+	 */
+	public int getPeak(String template) {
+		return getPool(template).peak;
+	}
+
+	/**
+	 * Retrieve the capacity of the template
+	 */
+	public int getCapacity(String template) {
+		return getPool(template).max;
+	}
+
+	// Retrieve the pool of the template
+	private Pool<ObjectModel> getPool(String template) {
+		Pool<ObjectModel> pool = pools.get(template);
+		if (pool == null) {
+			throw new IllegalArgumentException("Template '" + template + "' was not registered.");
+		}
+		return pool;
+	}
+}
@@ -29,6 +29,7 @@ package com.tenserver.woodyx.physics;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.JointDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.DistanceJointDef;
 import com.badlogic.gdx.physics.box2d.joints.GearJointDef;
@@ -66,6 +67,10 @@ public class ObjectsJoint {
 
 	private Joint joint;
 
+	// the models of body A and B, the joint can't be created without their bodies
+	private ObjectModel modelA;
+	private ObjectModel modelB;
+
 	/**
 	 * Quick joint function: make quick joint weld
 	 * 
@@ -91,6 +96,8 @@ public class ObjectsJoint {
 	public ObjectsJoint(World world, ObjectModel objectA, ObjectModel objectB, byte jointType, Vector2 anchorA,
 			Vector2 anchorB, boolean collideConnected) {
 		this.jointType = jointType;
+		this.modelA = objectA;
+		this.modelB = objectB;
 		// create joint
 		switch (jointType) {
 		case MOUSE:
@@ -177,6 +184,51 @@ public class ObjectsJoint {
 		createJoint(world);
 	}
 
+	/**
+	 * Joint for an existing joint (e.g. created by a {@link Blueprint}), the
+	 * definition is kept to create it again
+	 *
+	 * @param def:    the definition of joint, its type must match jointType
+	 * @param modelA: model of body A
+	 * @param modelB: model of body B
+	 */
+	ObjectsJoint(Joint joint, JointDef def, byte jointType, ObjectModel modelA, ObjectModel modelB) {
+		this.joint = joint;
+		this.jointType = jointType;
+		this.modelA = modelA;
+		this.modelB = modelB;
+		joint.setUserData(this);
+		switch (jointType) {
+		case MOUSE:
+			mouseJointDef = (MouseJointDef) def;
+			break;
+		case DISTANCE:
+			distanceJointDef = (DistanceJointDef) def;
+			break;
+		case GEAR:
+			gearJointDef = (GearJointDef) def;
+			break;
+		case PRISMATIC:
+			prismaticJointDef = (PrismaticJointDef) def;
+			break;
+		case PULLEY:
+			pullyJointDef = (PulleyJointDef) def;
+			break;
+		case REVOLUTE:
+			revoluteJointDef = (RevoluteJointDef) def;
+			break;
+		case ROPE:
+			ropeJointDef = (RopeJointDef) def;
+			break;
+		case WELD:
+			weldJointDef = (WeldJointDef) def;
+			break;
+		case WHEEL:
+			wheelJointDef = (WheelJointDef) def;
+			break;
+		}
+	}
+
 	/**
 	 * Get mouseJointDef target: the initial world target point dampingRatio: The
 	 * damping ratio frequencyHz: the response speed maxForce: the maximum
@@ -347,12 +399,62 @@ public class ObjectsJoint {
 		}
 	}
 
+	/**
+	 * Check if the joint can be created (again): its definition is complete
+	 * (bodies, and joints for a gear) and the bodies of its models are not
+	 * destroyed
+	 */
+	public boolean canCreate() {
+		return hasDefinition() && hasBodies();
+	}
+
+	/**
+	 * Check if the definition is complete: bodies, and joints for a gear
+	 */
+	public boolean hasDefinition() {
+		JointDef def = getJointDef();
+		if (def == null || def.bodyA == null || def.bodyB == null) {
+			return false;
+		}
+		if (jointType == GEAR) {
+			return gearJointDef.joint1 != null && gearJointDef.joint2 != null;
+		}
+		return true;
+	}
+
+	/**
+	 * Check if the bodies of the joint's models still exist
+	 */
+	public boolean hasBodies() {
+		return modelA != null && modelA.getBody() != null && modelB != null && modelB.getBody() != null;
+	}
+
+	/**
+	 * Retrieve the model of body A
+	 */
+	public ObjectModel getModelA() {
+		return modelA;
+	}
+
+	/**
+	 * Retrieve the model of body B
+	 */
+	public ObjectModel getModelB() {
+		return modelB;
+	}
+
 	/**
 	 * Create joints for 2 body
 	 * 
 	 * @param world
 	 */
 	public void createJoint(World world) {
+		if (!hasDefinition()) {
+			throw new IllegalStateException("The joint (type " + jointType + ") has no complete definition");
+		}
+		if (!hasBodies()) {
+			throw new IllegalStateException("A body of the joint (type " + jointType + ") was destroyed");
+		}
 		switch (jointType) {
 		case MOUSE:
 			joint = (MouseJoint) world.createJoint(mouseJointDef);
@@ -390,6 +492,34 @@ public class ObjectsJoint {
 			joint = world.createJoint(wheelJointDef);
 			break;
 		}
+		// found by ObjectModel.dispose() when the joint is destroyed with a body
+		joint.setUserData(this);
+	}
+
+	// The definition of the joint's type
+	private JointDef getJointDef() {
+		switch (jointType) {
+		case MOUSE:
+			return mouseJointDef;
+		case DISTANCE:
+			return distanceJointDef;
+		case GEAR:
+			return gearJointDef;
+		case PRISMATIC:
+			return prismaticJointDef;
+		case PULLEY:
+			return pullyJointDef;
+		case REVOLUTE:
+			return revoluteJointDef;
+		case ROPE:
+			return ropeJointDef;
+		case WELD:
+			return weldJointDef;
+		case WHEEL:
+			return wheelJointDef;
+		default:
+			return null;
+		}
 	}
 
 	/**
@@ -399,6 +529,13 @@ public class ObjectsJoint {
 		return joint;
 	}
 
+	/**
+	 * Forget the joint, it was destroyed with one of its bodies
+	 */
+	void detach() {
+		joint = null;
+	}
+
 	/**
 	 * Destroy the current joint
 	 */
@@ -0,0 +1,253 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Level of detail for the physics by the visible rectangles (e.g. the cameras'
+ * view bounds). The registered models are classified by their distance to the
+ * views:
+ * <ul>
+ * <li>NEAR (inside the views + margin): active</li>
+ * <li>MID (inside the views + far margin): active but no longer woken, they
+ * keep moving and fall asleep by themselves when they come to rest</li>
+ * <li>FAR: inactive, they cost nothing for the broadphase and the solver</li>
+ * </ul>
+ * The models are classified by the positions of their bodies. The static
+ * bodies are always NEAR: their origin may be far from their fixtures (e.g.
+ * a ground strip or a merged geometry at 0,0) and they cost nothing for the
+ * solver. The parked models (see {@link ObjectModelPool}) are skipped, they
+ * are classified again after they're reset. Don't call {@link #update(Array)}
+ * inside world.step()
+ *
+ * @author kong
+ *
+ */
+public class PhysicsLod {
+	public static final byte NEAR = 0;
+	public static final byte MID = 1;
+	public static final byte FAR = 2;
+
+	private Array<ObjectModel> models;
+	private byte[] states;
+
+	// in box
+	private float margin;
+	private float farMargin;
+
+	// classify the models every interval updates
+	private int interval;
+	private int counter;
+
+	// statistic
+	private int nearCount;
+	private int midCount;
+	private int farCount;
+
+	/**
+	 * @param margin:    distance around the views for the NEAR zone, in box
+	 * @param farMargin: distance around the views for the MID zone, in box
+	 * @param interval:  classify the models every interval updates
+	 */
+	public PhysicsLod(float margin, float farMargin, int interval) {
+		this.margin = margin;
+		this.farMargin = Math.max(margin, farMargin);
+		this.interval = Math.max(1, interval);
+		models = new Array<ObjectModel>(false, 64);
+		states = new byte[64];
+		counter = 0;
+	}
+
+	/**
+	 * Register the model, it's NEAR until the next classification
+	 */
+	public void add(ObjectModel model) {
+		if (models.size == states.length) {
+			byte[] newStates = new byte[states.length * 2];
+			System.arraycopy(states, 0, newStates, 0, states.length);
+			states = newStates;
+		}
+		states[models.size] = NEAR;
+		models.add(model);
+	}
+
+	/**
+	 * Remove the model, it's activated again
+	 */
+	public void remove(ObjectModel model) {
+		int index = models.indexOf(model, true);
+		if (index < 0) {
+			return;
+		}
+		if (states[index] == FAR && model.getBody() != null && !model.isParked()) {
+			model.getBody().setActive(true);
+		}
+		// the last model takes the index (unordered array)
+		int last = models.size - 1;
+		models.removeIndex(index);
+		states[index] = states[last];
+	}
+
+	/**
+	 * Classify the models by the views
+	 *
+	 * @param views: the visible rectangles in box
+	 * @return <code>true</code> if the models were classified in this update
+	 */
+	public boolean update(Array<Rectangle> views) {
+		if (counter++ % interval != 0) {
+			return false;
+		}
+
+		nearCount = 0;
+		midCount = 0;
+		farCount = 0;
+		for (int i = 0; i < models.size; i++) {
+			ObjectModel model = models.get(i);
+			Body body = model.getBody();
+			if (body == null) {
+				continue;
+			}
+			if (model.isParked()) {
+				// reset() activates and wakes the model, the same as NEAR
+				states[i] = NEAR;
+				continue;
+			}
+			if (body.getType() == BodyType.StaticBody) {
+				// never deactivated, see the class doc
+				if (states[i] == FAR) {
+					body.setActive(true);
+				}
+				states[i] = NEAR;
+				nearCount++;
+				continue;
+			}
+
+			Vector2 position = body.getPosition();
+			float distance = distance(views, position.x, position.y);
+			byte state;
+			if (distance <= margin) {
+				state = NEAR;
+				nearCount++;
+			} else if (distance <= farMargin) {
+				state = MID;
+				midCount++;
+			} else {
+				state = FAR;
+				farCount++;
+			}
+
+			if (state != states[i]) {
+				apply(body, states[i], state);
+				states[i] = state;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Activate all models, e.g. before saving the level
+	 */
+	public void reset() {
+		for (int i = 0; i < models.size; i++) {
+			ObjectModel model = models.get(i);
+			Body body = model.getBody();
+			if (body != null && states[i] == FAR && !model.isParked()) {
+				body.setActive(true);
+			}
+			states[i] = NEAR;
+		}
+	}
+
+	/**
+	 * Retrieve the state of the model: NEAR, MID, FAR or -1 if it's not
+	 * registered
+	 */
+	public byte getState(ObjectModel model) {
+		int index = models.indexOf(model, true);
+		if (index < 0) {
+			return -1;
+		}
+		return states[index];
+	}
+
+	/**
+	 * Retrieve the number of NEAR models of the last classification
+	 */
+	public int getNearCount() {
+		return nearCount;
+	}
+
+	/**
+	 * Retrieve the number of MID models of the last classification
+	 */
+	public int getMidCount() {
+		return midCount;
+	}
+
+	/**
+	 * Retrieve the number of FAR (inactive) models of the last classification
+	 */
+	public int getFarCount() {
+		return farCount;
+	}
+
+	// Change the body by its new state
+	private void apply(Body body, byte oldState, byte newState) {
+		switch (newState) {
+		case NEAR:
+			if (oldState == FAR) {
+				body.setActive(true);
+			}
+			body.setAwake(true);
+			break;
+		case MID:
+			// putting a body to sleep zeroes its velocity, leave it awake
+			if (oldState == FAR) {
+				body.setActive(true);
+			}
+			break;
+		case FAR:
+			body.setActive(false);
+			break;
+		}
+	}
+
+	// The distance from the point to the nearest view, 0 if it's inside
+	private float distance(Array<Rectangle> views, float x, float y) {
+		float result = Float.MAX_VALUE;
+		for (int i = 0; i < views.size; i++) {
+			Rectangle view = views.get(i);
+			float dx = Math.max(0, Math.max(view.x - x, x - (view.x + view.width)));
+			float dy = Math.max(0, Math.max(view.y - y, y - (view.y + view.height)));
+			result = Math.min(result, Math.max(dx, dy));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,241 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Immutable physics material (density, friction, restitution and collision
+ * filter) shared by all models made of it. The materials are kept in a table
+ * and retrieved by id or by name, the same values always give the same
+ * material
+ * <p>
+ * The table is read without lock (models can be created on many
+ * {@link WorldScheduler} threads), it's copied when a material is added. The
+ * materials are kept until {@link #clear()}
+ *
+ * @author kong
+ *
+ */
+public final class PhysicsMaterial {
+	// the current table, replaced (never changed) when a material is added
+	private static volatile Table table = new Table();
+	private static final Object lock = new Object();
+	private static int nextId = 0;
+
+	private final int id;
+	private final float density;
+	private final float friction;
+	private final float restitution;
+	private final short category;
+	private final short mask;
+
+	// the next material of the same key
+	private final PhysicsMaterial next;
+
+	// Snapshot of the table
+	private static final class Table {
+		// key of the values -> materials
+		final IntMap<PhysicsMaterial> keys;
+		final IntMap<PhysicsMaterial> ids;
+		final ObjectIntMap<String> names;
+
+		Table() {
+			keys = new IntMap<PhysicsMaterial>();
+			ids = new IntMap<PhysicsMaterial>();
+			names = new ObjectIntMap<String>();
+		}
+
+		Table(Table other) {
+			this();
+			keys.putAll(other.keys);
+			ids.putAll(other.ids);
+			names.putAll(other.names);
+		}
+	}
+
+	private PhysicsMaterial(int id, float density, float friction, float restitution, short category, short mask,
+			PhysicsMaterial next) {
+		this.id = id;
+		this.density = density;
+		this.friction = friction;
+		this.restitution = restitution;
+		this.category = category;
+		this.mask = mask;
+		this.next = next;
+	}
+
+	/**
+	 * Retrieve the material of the values, it's created the first time
+	 *
+	 * @param density:     density, usually in kilogram/m2
+	 * @param friction:    friction, usually in range [0,1]
+	 * @param restitution: restitution, usually in range [0,1]
+	 * @param category:    category for filter collision, the default filter is
+	 *                     used if category or mask is 0
+	 * @param mask:        mask for filter collision
+	 */
+	public static PhysicsMaterial obtain(float density, float friction, float restitution, int category,
+			int mask) {
+		// the same rule as the models: both bits are needed
+		short categoryBits = 0x0001;
+		short maskBits = -1;
+		if (category != 0 && mask != 0) {
+			categoryBits = (short) category;
+			maskBits = (short) mask;
+		}
+
+		int key = key(density, friction, restitution, categoryBits, maskBits);
+		PhysicsMaterial material = find(table, key, density, friction, restitution, categoryBits, maskBits);
+		if (material != null) {
+			return material;
+		}
+
+		synchronized (lock) {
+			Table current = table;
+			material = find(current, key, density, friction, restitution, categoryBits, maskBits);
+			if (material == null) {
+				material = new PhysicsMaterial(nextId++, density, friction, restitution, categoryBits, maskBits,
+						current.keys.get(key));
+				Table newTable = new Table(current);
+				newTable.keys.put(key, material);
+				newTable.ids.put(material.id, material);
+				table = newTable;
+			}
+			return material;
+		}
+	}
+
+	/**
+	 * Register the material by name, e.g. "wood", "ice"
+	 */
+	public static PhysicsMaterial register(String name, float density, float friction, float restitution,
+			int category, int mask) {
+		PhysicsMaterial material = obtain(density, friction, restitution, category, mask);
+		synchronized (lock) {
+			Table newTable = new Table(table);
+			newTable.names.put(name, material.id);
+			table = newTable;
+		}
+		return material;
+	}
+
+	/**
+	 * Retrieve the material by id
+	 */
+	public static PhysicsMaterial get(int id) {
+		PhysicsMaterial material = table.ids.get(id);
+		if (material == null) {
+			throw new IllegalArgumentException("Material " + id + " doesn't exist.");
+		}
+		return material;
+	}
+
+	/**
+	 * Retrieve the material by name
+	 */
+	public static PhysicsMaterial get(String name) {
+		Table current = table;
+		int id = current.names.get(name, -1);
+		if (id < 0) {
+			throw new IllegalArgumentException("Material '" + name + "' was not registered.");
+		}
+		return current.ids.get(id);
+	}
+
+	/**
+	 * Retrieve the number of materials
+	 */
+	public static int size() {
+		return table.ids.size;
+	}
+
+	/**
+	 * Drop all materials and names (e.g. between levels), the models keep their
+	 * materials. The ids are not reused
+	 */
+	public static void clear() {
+		synchronized (lock) {
+			table = new Table();
+		}
+	}
+
+	// Key of the values
+	private static int key(float density, float friction, float restitution, short category, short mask) {
+		int key = Float.floatToIntBits(density);
+		key = 31 * key + Float.floatToIntBits(friction);
+		key = 31 * key + Float.floatToIntBits(restitution);
+		return 31 * key + ((category << 16) | (mask & 0xFFFF));
+	}
+
+	// Find the material of the values in the table
+	private static PhysicsMaterial find(Table current, int key, float density, float friction, float restitution,
+			short category, short mask) {
+		for (PhysicsMaterial material = current.keys.get(key); material != null; material = material.next) {
+			if (material.density == density && material.friction == friction && material.restitution == restitution
+					&& material.category == category && material.mask == mask) {
+				return material;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Write the material into the definition
+	 */
+	public void apply(FixtureDef fixtureDef) {
+		fixtureDef.density = density;
+		fixtureDef.friction = friction;
+		fixtureDef.restitution = restitution;
+		fixtureDef.filter.categoryBits = category;
+		fixtureDef.filter.maskBits = mask;
+		fixtureDef.filter.groupIndex = 0;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public float getDensity() {
+		return density;
+	}
+
+	public float getFriction() {
+		return friction;
+	}
+
+	public float getRestitution() {
+		return restitution;
+	}
+
+	public short getCategory() {
+		return category;
+	}
+
+	public short getMask() {
+		return mask;
+	}
+}
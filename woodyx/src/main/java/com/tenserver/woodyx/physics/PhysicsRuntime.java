@@ -0,0 +1,225 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+/**
+ * Run a world without any graphics backend (server, tests, tools). Only the
+ * natives are loaded, no GL context, SpriteBatch, Stage or camera is needed.
+ * The picking input is in world coordinates [pixel], each runtime has its own
+ * {@link PickingService} so the runtimes can run on different threads
+ *
+ * @author kong
+ *
+ */
+public class PhysicsRuntime {
+	private World world;
+	private WorldStepper stepper;
+	private CommandBuffer commandBuffer;
+
+	// the mouse joints of this world, body A is an empty static body
+	private ObjectModel groundModel;
+	private PickingService picking;
+
+	// statistic
+	private long startupTime;
+	private long memoryFootprint;
+
+	/**
+	 * Create the runtime with the default step time
+	 *
+	 * @param gravity: gravity of the world
+	 * @param doSleep: allow bodies to sleep
+	 */
+	public PhysicsRuntime(Vector2 gravity, boolean doSleep) {
+		this(gravity, doSleep, WorldStepper.DEFAULT_STEP_TIME, WorldStepper.DEFAULT_MAX_SUB_STEPS);
+	}
+
+	/**
+	 * @param gravity:     gravity of the world
+	 * @param doSleep:     allow bodies to sleep
+	 * @param stepTime:    the fixed step time, unit: second
+	 * @param maxSubSteps: the maximum steps per update
+	 */
+	public PhysicsRuntime(Vector2 gravity, boolean doSleep, float stepTime, int maxSubSteps) {
+		long usedMemory = getUsedMemory();
+		long start = System.nanoTime();
+
+		// load the natives only, no backend is needed
+		GdxNativesLoader.load();
+		world = new World(gravity, doSleep);
+		stepper = new WorldStepper(stepTime, maxSubSteps);
+		commandBuffer = new CommandBuffer();
+		stepper.setCommandBuffer(commandBuffer);
+		groundModel = new ObjectModel(world.createBody(new BodyDef()));
+		picking = new PickingService(world, groundModel);
+
+		startupTime = System.nanoTime() - start;
+		memoryFootprint = getUsedMemory() - usedMemory;
+	}
+
+	/**
+	 * Update the world
+	 *
+	 * @param deltaTime: the elapsed time, unit: second
+	 * @return the number of steps
+	 */
+	public int update(float deltaTime) {
+		return stepper.update(world, deltaTime, null);
+	}
+
+	/**
+	 * Update the world, keep the previous state of the models for the
+	 * interpolation
+	 */
+	public int update(float deltaTime, Array<ObjectModel> models) {
+		return stepper.update(world, deltaTime, models);
+	}
+
+	/**
+	 * Set the contact listener, e.g. {@link ContactRouter}
+	 */
+	public void setContactListener(ContactListener listener) {
+		world.setContactListener(listener);
+	}
+
+	/**
+	 * Query the body at the point in world [pixel]
+	 */
+	public Body pick(float x, float y) {
+		return picking.pick(x, y);
+	}
+
+	/**
+	 * Touch the object at the point in world [pixel] by the first pointer
+	 *
+	 * @param maxForce: the maximum constraint force (multiplier of mass)
+	 * @return the user data of touched body or <code>null</code>
+	 */
+	public String touch(float x, float y, float maxForce) {
+		return touch(0, x, y, maxForce);
+	}
+
+	/**
+	 * Touch the object at the point in world [pixel] by the pointer
+	 *
+	 * @return the user data of touched body or <code>null</code>
+	 */
+	public String touch(int pointer, float x, float y, float maxForce) {
+		Body body = picking.touch(pointer, x, y, maxForce);
+		return body != null ? (String) body.getUserData() : null;
+	}
+
+	/**
+	 * Drag the object of the first pointer to the point in world [pixel]
+	 */
+	public void drag(float x, float y) {
+		picking.drag(0, x, y);
+	}
+
+	/**
+	 * Drag the object of the pointer to the point in world [pixel]
+	 */
+	public void drag(int pointer, float x, float y) {
+		picking.drag(pointer, x, y);
+	}
+
+	/**
+	 * Release the object of the first pointer
+	 */
+	public void release() {
+		picking.release(0);
+	}
+
+	/**
+	 * Release the object of the pointer
+	 */
+	public void release(int pointer) {
+		picking.release(pointer);
+	}
+
+	/**
+	 * Retrieve the picking service of this world
+	 */
+	public PickingService getPicking() {
+		return picking;
+	}
+
+	/**
+	 * Retrieve the world
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * Retrieve the stepper
+	 */
+	public WorldStepper getStepper() {
+		return stepper;
+	}
+
+	/**
+	 * Retrieve the command buffer, it's flushed after each step
+	 */
+	public CommandBuffer getCommandBuffer() {
+		return commandBuffer;
+	}
+
+	/**
+	 * Retrieve the time for loading the natives and creating the world, unit:
+	 * nanosecond
+	 */
+	public long getStartupTime() {
+		return startupTime;
+	}
+
+	/**
+	 * Retrieve the java heap used by the startup, unit: byte. The native memory
+	 * of Box2D is not included
+	 */
+	public long getMemoryFootprint() {
+		return memoryFootprint;
+	}
+
+	/**
+	 * Dispose the world
+	 */
+	public void dispose() {
+		world.dispose();
+	}
+
+	// Retrieve the used java heap
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
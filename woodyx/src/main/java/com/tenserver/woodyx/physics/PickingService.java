@@ -0,0 +1,308 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.joints.MouseJoint;
+import com.badlogic.gdx.physics.box2d.joints.MouseJointDef;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Pick and drag the bodies of one world, one mouse joint for each pointer so
+ * many fingers can drag at the same time. The definition, the query callback
+ * and the vectors are reused, touching or dragging makes no garbage
+ *
+ * @author kong
+ *
+ */
+public class PickingService {
+	public static final int DEFAULT_POINTERS = 10;
+
+	// half size of the query box, in box
+	private static final float QUERY_SIZE = 0.0001f;
+
+	private World world;
+	private Body groundBody;
+
+	// slots by pointer
+	private MouseJoint[] joints;
+	private Body[] bodies;
+
+	// reusable
+	private MouseJointDef def = new MouseJointDef();
+	private Vector3 point = new Vector3();
+	private Vector2 target = new Vector2();
+
+	// hit test
+	private float testX;
+	private float testY;
+	private Array<Fixture> hits;
+	private float[] ranks;
+	private Body bestBody;
+	private float bestRank;
+
+	// Report the fixtures contain the test point, all of them or only the best
+	private boolean collect;
+	private QueryCallback callback = new QueryCallback() {
+		@Override
+		public boolean reportFixture(Fixture fixture) {
+			if (!fixture.testPoint(testX, testY)) {
+				return true;
+			}
+
+			float rank = rank(fixture.getBody());
+			if (collect) {
+				insert(fixture, rank);
+			} else if (bestBody == null || rank < bestRank) {
+				bestBody = fixture.getBody();
+				bestRank = rank;
+			}
+			return true;
+		}
+	};
+
+	/**
+	 * @param world:       world
+	 * @param groundModel: ground model in the world (body A of the mouse joints)
+	 */
+	public PickingService(World world, ObjectModel groundModel) {
+		this(world, groundModel, DEFAULT_POINTERS);
+	}
+
+	/**
+	 * @param world:       world
+	 * @param groundModel: ground model in the world (body A of the mouse joints)
+	 * @param pointers:    the maximum number of pointers
+	 */
+	public PickingService(World world, ObjectModel groundModel, int pointers) {
+		this.world = world;
+		this.groundBody = groundModel.getBody();
+		joints = new MouseJoint[pointers];
+		bodies = new Body[pointers];
+		ranks = new float[16];
+		def.bodyA = groundBody;
+		def.collideConnected = true;
+	}
+
+	/**
+	 * Touch the best body at the point in world
+	 *
+	 * @param pointer:  the pointer
+	 * @param x:        x in world [pixel]
+	 * @param y:        y in world [pixel]
+	 * @param maxForce: the maximum constraint force (multiplier of mass)
+	 * @return the touched body or <code>null</code>
+	 */
+	public Body touch(int pointer, float x, float y, float maxForce) {
+		release(pointer);
+
+		Body body = pick(x, y);
+		if (body == null || body == groundBody) {
+			return null;
+		}
+
+		def.bodyB = body;
+		def.target.set(testX, testY);
+		def.maxForce = maxForce * body.getMass();
+		joints[pointer] = (MouseJoint) world.createJoint(def);
+		bodies[pointer] = body;
+		def.bodyB = null;
+
+		body.setAwake(true);
+		return body;
+	}
+
+	/**
+	 * Touch the best body at the screen point
+	 *
+	 * @param screenX: screenX [pixel]
+	 * @param screenY: screenY [pixel]
+	 */
+	public Body touch(int pointer, int screenX, int screenY, OrthographicCamera camera, float maxForce) {
+		camera.unproject(point.set(screenX, screenY, 0));
+		return touch(pointer, point.x, point.y, maxForce);
+	}
+
+	/**
+	 * Drag the body of the pointer to the point in world
+	 *
+	 * @param x: x in world [pixel]
+	 * @param y: y in world [pixel]
+	 */
+	public void drag(int pointer, float x, float y) {
+		if (joints[pointer] != null) {
+			joints[pointer].setTarget(target.set(BoxUtility.ConvertToBox(x), BoxUtility.ConvertToBox(y)));
+		}
+	}
+
+	/**
+	 * Drag the body of the pointer to the screen point
+	 */
+	public void drag(int pointer, int screenX, int screenY, OrthographicCamera camera) {
+		if (joints[pointer] != null) {
+			camera.unproject(point.set(screenX, screenY, 0));
+			drag(pointer, point.x, point.y);
+		}
+	}
+
+	/**
+	 * Release the body of the pointer
+	 */
+	public void release(int pointer) {
+		if (joints[pointer] != null) {
+			world.destroyJoint(joints[pointer]);
+			joints[pointer] = null;
+			bodies[pointer] = null;
+		}
+	}
+
+	/**
+	 * Release all bodies, e.g. before destroying them
+	 */
+	public void releaseAll() {
+		for (int i = 0; i < joints.length; i++) {
+			release(i);
+		}
+	}
+
+	/**
+	 * Release the pointers which drag the body, call it before destroying the
+	 * body
+	 */
+	public void release(Body body) {
+		for (int i = 0; i < bodies.length; i++) {
+			if (bodies[i] == body) {
+				release(i);
+			}
+		}
+	}
+
+	/**
+	 * Check if the pointer is dragging a body
+	 */
+	public boolean isDragging(int pointer) {
+		return joints[pointer] != null;
+	}
+
+	/**
+	 * Retrieve the body dragged by the pointer or <code>null</code>
+	 */
+	public Body getBody(int pointer) {
+		return bodies[pointer];
+	}
+
+	/**
+	 * Retrieve the best body at the point in world: dynamic before kinematic
+	 * before static, then the nearest center
+	 *
+	 * @param x: x in world [pixel]
+	 * @param y: y in world [pixel]
+	 * @return the body or <code>null</code>
+	 */
+	public Body pick(float x, float y) {
+		bestBody = null;
+		collect = false;
+		query(x, y);
+		Body result = bestBody;
+		bestBody = null;
+		return result;
+	}
+
+	/**
+	 * Retrieve all fixtures at the point in world, ranked like
+	 * {@link #pick(float, float)}
+	 *
+	 * @param x:      x in world [pixel]
+	 * @param y:      y in world [pixel]
+	 * @param result: the buffer, it's cleared first
+	 * @return the number of fixtures
+	 */
+	public int hitTest(float x, float y, Array<Fixture> result) {
+		result.clear();
+		hits = result;
+		collect = true;
+		query(x, y);
+		hits = null;
+		return result.size;
+	}
+
+	/**
+	 * Get the ground body
+	 */
+	public Body getGroundBody() {
+		return groundBody;
+	}
+
+	/**
+	 * Retrieve the maximum number of pointers
+	 */
+	public int getPointers() {
+		return joints.length;
+	}
+
+	// Query the fixtures at the point
+	private void query(float x, float y) {
+		testX = BoxUtility.ConvertToBox(x);
+		testY = BoxUtility.ConvertToBox(y);
+		world.QueryAABB(callback, testX - QUERY_SIZE, testY - QUERY_SIZE, testX + QUERY_SIZE, testY + QUERY_SIZE);
+	}
+
+	// The lower is the better: the type first, then the distance to the center
+	private float rank(Body body) {
+		Vector2 position = body.getPosition();
+		float dx = position.x - testX;
+		float dy = position.y - testY;
+		float rank = dx * dx + dy * dy;
+		if (body.getType() == BodyType.KinematicBody) {
+			rank += 1000000f;
+		} else if (body.getType() == BodyType.StaticBody) {
+			rank += 2000000f;
+		}
+		return rank;
+	}
+
+	// Insert the fixture into the sorted hits
+	private void insert(Fixture fixture, float rank) {
+		if (ranks.length <= hits.size) {
+			float[] newRanks = new float[ranks.length * 2];
+			System.arraycopy(ranks, 0, newRanks, 0, hits.size);
+			ranks = newRanks;
+		}
+
+		int index = hits.size;
+		while (index > 0 && ranks[index - 1] > rank) {
+			ranks[index] = ranks[index - 1];
+			index--;
+		}
+		ranks[index] = rank;
+		hits.insert(index, fixture);
+	}
+}
@@ -0,0 +1,436 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntIntMap;
+
+/**
+ * Batch the raycasts and the AABB queries of a frame (e.g. line of sight of
+ * the AI agents) and run them together after world.step(). The results are
+ * written into primitive arrays, the callbacks are reused. The identical
+ * queries of a frame can be run only once (cache). The coordinates are in
+ * world [pixel], the same as {@link PickingService}
+ * <p>
+ * Usage: add the queries, {@link #run(World)}, read the results by the
+ * returned indices, then {@link #clear()} for the next frame
+ *
+ * @author kong
+ *
+ */
+public class QueryBatch {
+	// the closest hit
+	public static final byte RAY = 0;
+	// any hit, stop at the first one (line of sight)
+	public static final byte RAY_ANY = 1;
+	// all fixtures whose AABB overlaps the box
+	public static final byte BOX = 2;
+
+	private static final int PARAMS = 4;
+	private static final int DEFAULT_CAPACITY = 32;
+
+	// queries
+	private byte[] types;
+	private float[] params;
+	private short[] masks;
+	private int[] sources;
+	private int size;
+
+	// ray results
+	private float[] fractions;
+	private float[] pointsX;
+	private float[] pointsY;
+	private float[] normalsX;
+	private float[] normalsY;
+	private Fixture[] fixtures;
+
+	// box results: boxHits[starts[i]...starts[i] + counts[i]]
+	private int[] starts;
+	private int[] counts;
+	private Array<Fixture> boxHits;
+
+	// cache: hash -> first query of this frame
+	private boolean cache;
+	private IntIntMap hashes;
+	private int cachedCount;
+
+	private boolean ignoreSensors;
+
+	// statistic
+	private long runTime;
+
+	// the running query
+	private int current;
+	private Vector2 point1 = new Vector2();
+	private Vector2 point2 = new Vector2();
+
+	private RayCastCallback rayCallback = new RayCastCallback() {
+		@Override
+		public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+			if (!accept(fixture)) {
+				// ignore and continue
+				return -1;
+			}
+
+			fractions[current] = fraction;
+			pointsX[current] = point.x;
+			pointsY[current] = point.y;
+			normalsX[current] = normal.x;
+			normalsY[current] = normal.y;
+			fixtures[current] = fixture;
+
+			// terminate for any hit, clip to the closest one otherwise
+			return types[current] == RAY_ANY ? 0 : fraction;
+		}
+	};
+
+	private QueryCallback boxCallback = new QueryCallback() {
+		@Override
+		public boolean reportFixture(Fixture fixture) {
+			if (accept(fixture)) {
+				boxHits.add(fixture);
+				counts[current]++;
+			}
+			return true;
+		}
+	};
+
+	public QueryBatch() {
+		this(DEFAULT_CAPACITY, true);
+	}
+
+	/**
+	 * @param capacity: the initial number of queries
+	 * @param cache:    run the identical queries of a frame only once
+	 */
+	public QueryBatch(int capacity, boolean cache) {
+		this.cache = cache;
+		ignoreSensors = true;
+		hashes = new IntIntMap();
+		boxHits = new Array<Fixture>(false, capacity * 4);
+		resize(Math.max(1, capacity));
+	}
+
+	/**
+	 * Add a ray from (x1, y1) to (x2, y2) in world [pixel]
+	 *
+	 * @param mask: the category bits which can be hit
+	 * @return the index of query
+	 */
+	public int addRay(float x1, float y1, float x2, float y2, short mask) {
+		return add(RAY, BoxUtility.ConvertToBox(x1), BoxUtility.ConvertToBox(y1), BoxUtility.ConvertToBox(x2),
+				BoxUtility.ConvertToBox(y2), mask);
+	}
+
+	/**
+	 * Add a line of sight check from (x1, y1) to (x2, y2) in world [pixel], stop
+	 * at the first hit
+	 *
+	 * @param mask: the category bits which block the sight
+	 * @return the index of query
+	 */
+	public int addLineOfSight(float x1, float y1, float x2, float y2, short mask) {
+		return add(RAY_ANY, BoxUtility.ConvertToBox(x1), BoxUtility.ConvertToBox(y1), BoxUtility.ConvertToBox(x2),
+				BoxUtility.ConvertToBox(y2), mask);
+	}
+
+	/**
+	 * Add an AABB query in world [pixel]
+	 *
+	 * @param mask: the category bits which are reported
+	 * @return the index of query
+	 */
+	public int addBox(float minX, float minY, float maxX, float maxY, short mask) {
+		return add(BOX, BoxUtility.ConvertToBox(minX), BoxUtility.ConvertToBox(minY), BoxUtility.ConvertToBox(maxX),
+				BoxUtility.ConvertToBox(maxY), mask);
+	}
+
+	/**
+	 * Run all queries, after world.step()
+	 */
+	public void run(World world) {
+		if (world.isLocked()) {
+			throw new GdxRuntimeException("The world is locked, run the queries after world.step()");
+		}
+
+		long start = System.nanoTime();
+		boxHits.clear();
+
+		for (int i = 0; i < size; i++) {
+			int source = sources[i];
+			if (source >= 0) {
+				copy(source, i);
+				continue;
+			}
+
+			current = i;
+			int offset = i * PARAMS;
+			if (types[i] == BOX) {
+				starts[i] = boxHits.size;
+				counts[i] = 0;
+				world.QueryAABB(boxCallback, params[offset], params[offset + 1], params[offset + 2],
+						params[offset + 3]);
+			} else {
+				fractions[i] = -1;
+				fixtures[i] = null;
+				point1.set(params[offset], params[offset + 1]);
+				point2.set(params[offset + 2], params[offset + 3]);
+				// a zero length ray is not allowed by Box2D
+				if (!point1.epsilonEquals(point2, 0)) {
+					world.rayCast(rayCallback, point1, point2);
+				}
+			}
+		}
+
+		runTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Drop the queries and their results, for the next frame
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			fixtures[i] = null;
+		}
+		boxHits.clear();
+		hashes.clear();
+		size = 0;
+		cachedCount = 0;
+	}
+
+	/**
+	 * Ignore the sensors (default) or not
+	 */
+	public void setIgnoreSensors(boolean ignoreSensors) {
+		this.ignoreSensors = ignoreSensors;
+	}
+
+	/**
+	 * Check if the ray hit something
+	 */
+	public boolean isHit(int query) {
+		return fractions[query] >= 0;
+	}
+
+	/**
+	 * Retrieve the fraction of the hit along the ray, -1 if there is no hit
+	 */
+	public float getFraction(int query) {
+		return fractions[query];
+	}
+
+	/**
+	 * Retrieve the hit point in world [pixel]
+	 */
+	public float getPointX(int query) {
+		return BoxUtility.ConvertToWorld(pointsX[query]);
+	}
+
+	/**
+	 * Retrieve the hit point in world [pixel]
+	 */
+	public float getPointY(int query) {
+		return BoxUtility.ConvertToWorld(pointsY[query]);
+	}
+
+	/**
+	 * Retrieve the normal at the hit point
+	 */
+	public float getNormalX(int query) {
+		return normalsX[query];
+	}
+
+	/**
+	 * Retrieve the normal at the hit point
+	 */
+	public float getNormalY(int query) {
+		return normalsY[query];
+	}
+
+	/**
+	 * Retrieve the hit fixture of the ray or <code>null</code>
+	 */
+	public Fixture getFixture(int query) {
+		return fixtures[query];
+	}
+
+	/**
+	 * Retrieve the number of fixtures of the box query
+	 */
+	public int getCount(int query) {
+		return counts[query];
+	}
+
+	/**
+	 * Retrieve a fixture of the box query
+	 *
+	 * @param index: from 0 to getCount(query) - 1
+	 */
+	public Fixture getFixture(int query, int index) {
+		return boxHits.get(starts[query] + index);
+	}
+
+	/**
+	 * Retrieve the number of queries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the number of queries answered by the cache in this frame
+	 */
+	public int getCachedCount() {
+		return cachedCount;
+	}
+
+	/**
+	 * Retrieve the time of the last run, unit: nanosecond
+	 */
+	public long getRunTime() {
+		return runTime;
+	}
+
+	// Record a query
+	private int add(byte type, float param0, float param1, float param2, float param3, short mask) {
+		if (size == types.length) {
+			resize(size * 2);
+		}
+
+		int index = size;
+		int offset = index * PARAMS;
+		types[index] = type;
+		params[offset] = param0;
+		params[offset + 1] = param1;
+		params[offset + 2] = param2;
+		params[offset + 3] = param3;
+		masks[index] = mask;
+		sources[index] = -1;
+
+		if (cache) {
+			int hash = hash(index);
+			int source = hashes.get(hash, -1);
+			if (source >= 0 && same(source, index)) {
+				sources[index] = source;
+				cachedCount++;
+			} else if (source < 0) {
+				hashes.put(hash, index);
+			}
+		}
+
+		size++;
+		return index;
+	}
+
+	// Check if the fixture can be reported
+	private boolean accept(Fixture fixture) {
+		if (ignoreSensors && fixture.isSensor()) {
+			return false;
+		}
+		return (fixture.getFilterData().categoryBits & masks[current]) != 0;
+	}
+
+	// Copy the results of an identical query
+	private void copy(int source, int target) {
+		fractions[target] = fractions[source];
+		pointsX[target] = pointsX[source];
+		pointsY[target] = pointsY[source];
+		normalsX[target] = normalsX[source];
+		normalsY[target] = normalsY[source];
+		fixtures[target] = fixtures[source];
+		starts[target] = starts[source];
+		counts[target] = counts[source];
+	}
+
+	// Hash of the query
+	private int hash(int index) {
+		int offset = index * PARAMS;
+		int hash = types[index];
+		for (int i = 0; i < PARAMS; i++) {
+			hash = 31 * hash + Float.floatToIntBits(params[offset + i]);
+		}
+		return 31 * hash + masks[index];
+	}
+
+	// Check if the queries are identical
+	private boolean same(int a, int b) {
+		if (types[a] != types[b] || masks[a] != masks[b]) {
+			return false;
+		}
+		for (int i = 0; i < PARAMS; i++) {
+			if (params[a * PARAMS + i] != params[b * PARAMS + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Resize the arrays, the first size queries are kept
+	private void resize(int capacity) {
+		byte[] newTypes = new byte[capacity];
+		float[] newParams = new float[capacity * PARAMS];
+		short[] newMasks = new short[capacity];
+		int[] newSources = new int[capacity];
+		float[] newFractions = new float[capacity];
+		float[] newPointsX = new float[capacity];
+		float[] newPointsY = new float[capacity];
+		float[] newNormalsX = new float[capacity];
+		float[] newNormalsY = new float[capacity];
+		Fixture[] newFixtures = new Fixture[capacity];
+		int[] newStarts = new int[capacity];
+		int[] newCounts = new int[capacity];
+		if (size > 0) {
+			System.arraycopy(types, 0, newTypes, 0, size);
+			System.arraycopy(params, 0, newParams, 0, size * PARAMS);
+			System.arraycopy(masks, 0, newMasks, 0, size);
+			System.arraycopy(sources, 0, newSources, 0, size);
+			System.arraycopy(fractions, 0, newFractions, 0, size);
+			System.arraycopy(pointsX, 0, newPointsX, 0, size);
+			System.arraycopy(pointsY, 0, newPointsY, 0, size);
+			System.arraycopy(normalsX, 0, newNormalsX, 0, size);
+			System.arraycopy(normalsY, 0, newNormalsY, 0, size);
+			System.arraycopy(fixtures, 0, newFixtures, 0, size);
+			System.arraycopy(starts, 0, newStarts, 0, size);
+			System.arraycopy(counts, 0, newCounts, 0, size);
+		}
+		types = newTypes;
+		params = newParams;
+		masks = newMasks;
+		sources = newSources;
+		fractions = newFractions;
+		pointsX = newPointsX;
+		pointsY = newPointsY;
+		normalsX = newNormalsX;
+		normalsY = newNormalsY;
+		fixtures = newFixtures;
+		starts = newStarts;
+		counts = newCounts;
+	}
+}
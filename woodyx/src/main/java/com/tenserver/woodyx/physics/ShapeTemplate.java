@@ -0,0 +1,148 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import aurelienribon.bodyeditor.BodyEditorLoader;
+import aurelienribon.bodyeditor.BodyEditorLoader.CircleModel;
+import aurelienribon.bodyeditor.BodyEditorLoader.PolygonModel;
+import aurelienribon.bodyeditor.BodyEditorLoader.RigidBodyModel;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The scaled shapes and the origin of a model in the BodyEditorLoader's file.
+ * The shapes are built once and attached to every body of the same model
+ *
+ * @author kong
+ *
+ */
+public class ShapeTemplate {
+	private String name;
+	private float scale;
+
+	private Array<Shape> shapes;
+	private Vector2 origin;
+
+	/**
+	 * Build the shapes of the model the same as
+	 * {@link BodyEditorLoader#attachFixture(Body, String, FixtureDef, float)}
+	 *
+	 * @param loader: bodyEditorLoader (file description .json's file)
+	 * @param name:   name of model in .json's file
+	 * @param scale:  width of model in box
+	 */
+	public ShapeTemplate(BodyEditorLoader loader, String name, float scale) {
+		RigidBodyModel rbModel = loader.getInternalModel().rigidBodies.get(name);
+		if (rbModel == null) {
+			throw new RuntimeException("Name '" + name + "' was not found.");
+		}
+
+		this.name = name;
+		this.scale = scale;
+
+		shapes = new Array<Shape>();
+		origin = new Vector2(rbModel.origin).scl(scale);
+
+		// polygons
+		for (int i = 0; i < rbModel.polygons.size(); i++) {
+			PolygonModel polygon = rbModel.polygons.get(i);
+			Vector2[] vertices = new Vector2[polygon.vertices.size()];
+			for (int j = 0; j < vertices.length; j++) {
+				vertices[j] = new Vector2(polygon.vertices.get(j)).scl(scale).sub(origin);
+			}
+
+			PolygonShape polygonShape = new PolygonShape();
+			polygonShape.set(vertices);
+			shapes.add(polygonShape);
+		}
+
+		// circles
+		for (int i = 0; i < rbModel.circles.size(); i++) {
+			CircleModel circle = rbModel.circles.get(i);
+
+			CircleShape circleShape = new CircleShape();
+			circleShape.setPosition(new Vector2(circle.center).scl(scale));
+			circleShape.setRadius(circle.radius * scale);
+			shapes.add(circleShape);
+		}
+	}
+
+	/**
+	 * Attach the fixtures to the body
+	 *
+	 * @param body:       the body
+	 * @param fixtureDef: the fixture parameters, its shape is replaced
+	 */
+	public void attachFixture(Body body, FixtureDef fixtureDef) {
+		for (int i = 0; i < shapes.size; i++) {
+			fixtureDef.shape = shapes.get(i);
+			body.createFixture(fixtureDef);
+		}
+		fixtureDef.shape = null;
+	}
+
+	/**
+	 * Get the name of model
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the scale of model
+	 */
+	public float getScale() {
+		return scale;
+	}
+
+	/**
+	 * Get the origin of model, it's shared so don't modify it
+	 */
+	public Vector2 getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Get the shapes
+	 */
+	public Array<Shape> getShapes() {
+		return shapes;
+	}
+
+	/**
+	 * Dispose the shapes
+	 */
+	public void dispose() {
+		for (int i = 0; i < shapes.size; i++) {
+			shapes.get(i).dispose();
+		}
+		shapes.clear();
+	}
+}
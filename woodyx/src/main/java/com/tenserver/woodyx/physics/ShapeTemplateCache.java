@@ -0,0 +1,110 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import aurelienribon.bodyeditor.BodyEditorLoader;
+
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Cache the shape templates by (loader, name, scale)
+ *
+ * @author kong
+ *
+ */
+public class ShapeTemplateCache {
+	private static ObjectMap<BodyEditorLoader, ObjectMap<String, IntMap<ShapeTemplate>>> templates = new ObjectMap<BodyEditorLoader, ObjectMap<String, IntMap<ShapeTemplate>>>();
+
+	/**
+	 * Get the template, it's built at the first time
+	 *
+	 * @param loader: bodyEditorLoader (file description .json's file)
+	 * @param name:   name of model in .json's file
+	 * @param scale:  width of model in box
+	 */
+	public static synchronized ShapeTemplate obtain(BodyEditorLoader loader, String name, float scale) {
+		ObjectMap<String, IntMap<ShapeTemplate>> names = templates.get(loader);
+		if (names == null) {
+			names = new ObjectMap<String, IntMap<ShapeTemplate>>();
+			templates.put(loader, names);
+		}
+
+		IntMap<ShapeTemplate> scales = names.get(name);
+		if (scales == null) {
+			scales = new IntMap<ShapeTemplate>();
+			names.put(name, scales);
+		}
+
+		int key = Float.floatToIntBits(scale);
+		ShapeTemplate template = scales.get(key);
+		if (template == null) {
+			template = new ShapeTemplate(loader, name, scale);
+			scales.put(key, template);
+		}
+
+		return template;
+	}
+
+	/**
+	 * Retrieve the number of cached templates
+	 */
+	public static synchronized int size() {
+		int size = 0;
+		for (ObjectMap<String, IntMap<ShapeTemplate>> names : templates.values()) {
+			for (IntMap<ShapeTemplate> scales : names.values()) {
+				size += scales.size;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Dispose the templates of the loader
+	 */
+	public static synchronized void dispose(BodyEditorLoader loader) {
+		ObjectMap<String, IntMap<ShapeTemplate>> names = templates.remove(loader);
+		if (names != null) {
+			for (IntMap<ShapeTemplate> scales : names.values()) {
+				for (ShapeTemplate template : scales.values()) {
+					template.dispose();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Dispose all templates
+	 */
+	public static synchronized void dispose() {
+		for (ObjectMap<String, IntMap<ShapeTemplate>> names : templates.values()) {
+			for (IntMap<ShapeTemplate> scales : names.values()) {
+				for (ShapeTemplate template : scales.values()) {
+					template.dispose();
+				}
+			}
+		}
+		templates.clear();
+	}
+}
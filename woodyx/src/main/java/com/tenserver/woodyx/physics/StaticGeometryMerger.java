@@ -0,0 +1,294 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Merge many static box models into one body, usually at the level loading.
+ * Adjacent axis aligned boxes with the same user tag, material and filter are
+ * merged into bigger boxes, the others are kept as they are. Each fixture keeps
+ * the user tag of its boxes so {@link ContactRouter} still routes by tag
+ *
+ * @author kong
+ *
+ */
+public class StaticGeometryMerger {
+	private static final float EPSILON = 0.0001f;
+
+	// statistic of the last merging
+	private int inputCount;
+	private int fixtureCount;
+
+	// A box in box unit
+	private static class Box {
+		float minX, minY, maxX, maxY;
+		float angle;
+		String tag;
+		float density, friction, restitution;
+		short category, mask, group;
+		boolean sensor;
+		boolean merged;
+
+		boolean sameKind(Box other) {
+			return tag.equals(other.tag) && density == other.density && friction == other.friction
+					&& restitution == other.restitution && category == other.category && mask == other.mask
+					&& group == other.group && sensor == other.sensor;
+		}
+
+		int compareKind(Box other) {
+			int result = tag.compareTo(other.tag);
+			if (result != 0)
+				return result;
+			result = Float.compare(friction, other.friction);
+			if (result != 0)
+				return result;
+			result = Float.compare(restitution, other.restitution);
+			if (result != 0)
+				return result;
+			result = Float.compare(density, other.density);
+			if (result != 0)
+				return result;
+			result = category - other.category;
+			if (result != 0)
+				return result;
+			result = mask - other.mask;
+			if (result != 0)
+				return result;
+			result = group - other.group;
+			if (result != 0)
+				return result;
+			return (sensor ? 1 : 0) - (other.sensor ? 1 : 0);
+		}
+	}
+
+	// Rows: kind, minY, maxY, minX
+	private static final Comparator<Box> ROWS = new Comparator<Box>() {
+		@Override
+		public int compare(Box a, Box b) {
+			int result = a.compareKind(b);
+			if (result != 0)
+				return result;
+			result = Float.compare(a.minY, b.minY);
+			if (result != 0)
+				return result;
+			result = Float.compare(a.maxY, b.maxY);
+			if (result != 0)
+				return result;
+			return Float.compare(a.minX, b.minX);
+		}
+	};
+
+	// Columns: kind, minX, maxX, minY
+	private static final Comparator<Box> COLUMNS = new Comparator<Box>() {
+		@Override
+		public int compare(Box a, Box b) {
+			int result = a.compareKind(b);
+			if (result != 0)
+				return result;
+			result = Float.compare(a.minX, b.minX);
+			if (result != 0)
+				return result;
+			result = Float.compare(a.maxX, b.maxX);
+			if (result != 0)
+				return result;
+			return Float.compare(a.minY, b.minY);
+		}
+	};
+
+	/**
+	 * Check if the model can be merged: static, basic polygon shape with one
+	 * fixture
+	 */
+	public static boolean canMerge(ObjectModel model) {
+		Body body = model.getBody();
+		if (body == null || !model.isBasicShape() || body.getType() != BodyType.StaticBody) {
+			return false;
+		}
+		Array<Fixture> fixtures = body.getFixtureList();
+		return fixtures.size == 1 && fixtures.get(0).getType() == Shape.Type.Polygon
+				&& body.getUserData() instanceof String;
+	}
+
+	/**
+	 * Merge the static box models into one body. The merged models are destroyed
+	 * and removed from the array, the others are kept
+	 *
+	 * @param world:  world
+	 * @param models: the models, the merged ones are removed
+	 * @param tag:    user data of the merged body
+	 * @return the model of merged body, <code>null</code> if nothing was merged
+	 */
+	public ObjectModel merge(World world, Array<ObjectModel> models, String tag) {
+		// collect the boxes
+		Array<Box> boxes = new Array<Box>();
+		for (int i = models.size - 1; i >= 0; i--) {
+			ObjectModel model = models.get(i);
+			if (!canMerge(model)) {
+				continue;
+			}
+
+			boxes.add(toBox(model));
+			model.dispose(world);
+			models.removeIndex(i);
+		}
+
+		inputCount = boxes.size;
+		if (boxes.size == 0) {
+			fixtureCount = 0;
+			return null;
+		}
+
+		// merge the rows, then the columns
+		Box[] result = mergeBoxes(boxes.toArray(Box.class), ROWS, true);
+		result = mergeBoxes(result, COLUMNS, false);
+
+		// create the body
+		BodyDef bodyDef = new BodyDef();
+		bodyDef.type = BodyType.StaticBody;
+		Body body = world.createBody(bodyDef);
+		body.setUserData(tag);
+
+		FixtureDef fixtureDef = new FixtureDef();
+		PolygonShape polygonShape = new PolygonShape();
+		Vector2 center = new Vector2();
+		fixtureDef.shape = polygonShape;
+
+		for (int i = 0; i < result.length; i++) {
+			Box box = result[i];
+			center.set((box.minX + box.maxX) / 2, (box.minY + box.maxY) / 2);
+			polygonShape.setAsBox((box.maxX - box.minX) / 2, (box.maxY - box.minY) / 2, center, box.angle);
+
+			fixtureDef.density = box.density;
+			fixtureDef.friction = box.friction;
+			fixtureDef.restitution = box.restitution;
+			fixtureDef.isSensor = box.sensor;
+			fixtureDef.filter.categoryBits = box.category;
+			fixtureDef.filter.maskBits = box.mask;
+			fixtureDef.filter.groupIndex = box.group;
+
+			Fixture fixture = body.createFixture(fixtureDef);
+			fixture.setUserData(box.tag);
+		}
+		polygonShape.dispose();
+
+		fixtureCount = result.length;
+		return new ObjectModel(body);
+	}
+
+	/**
+	 * Retrieve the number of merged models of the last merging
+	 */
+	public int getInputCount() {
+		return inputCount;
+	}
+
+	/**
+	 * Retrieve the number of fixtures of the last merged body
+	 */
+	public int getFixtureCount() {
+		return fixtureCount;
+	}
+
+	// Read the box of model
+	private Box toBox(ObjectModel model) {
+		Body body = model.getBody();
+		Fixture fixture = body.getFixtureList().get(0);
+		Filter filter = fixture.getFilterData();
+
+		Box box = new Box();
+		float halfWidth = BoxUtility.ConvertToBox(model.boxPolygon.x / 2);
+		float halfHeight = BoxUtility.ConvertToBox(model.boxPolygon.y / 2);
+		Vector2 position = body.getPosition();
+		box.minX = position.x - halfWidth;
+		box.minY = position.y - halfHeight;
+		box.maxX = position.x + halfWidth;
+		box.maxY = position.y + halfHeight;
+		box.angle = body.getAngle();
+		box.tag = (String) body.getUserData();
+		box.density = fixture.getDensity();
+		box.friction = fixture.getFriction();
+		box.restitution = fixture.getRestitution();
+		box.category = filter.categoryBits;
+		box.mask = filter.maskBits;
+		box.group = filter.groupIndex;
+		box.sensor = fixture.isSensor();
+		return box;
+	}
+
+	// Merge the adjacent boxes along x (rows) or y (columns)
+	private Box[] mergeBoxes(Box[] boxes, Comparator<Box> order, boolean rows) {
+		Arrays.sort(boxes, order);
+
+		Box current = null;
+		int count = 0;
+		for (int i = 0; i < boxes.length; i++) {
+			Box box = boxes[i];
+			if (current != null && current.angle == 0 && box.angle == 0 && current.sameKind(box)
+					&& adjacent(current, box, rows)) {
+				if (rows) {
+					current.maxX = Math.max(current.maxX, box.maxX);
+				} else {
+					current.maxY = Math.max(current.maxY, box.maxY);
+				}
+				box.merged = true;
+			} else {
+				current = box;
+				count++;
+			}
+		}
+
+		Box[] result = new Box[count];
+		int index = 0;
+		for (int i = 0; i < boxes.length; i++) {
+			if (!boxes[i].merged) {
+				result[index++] = boxes[i];
+			}
+		}
+		return result;
+	}
+
+	// Check if the next box touches the current one
+	private boolean adjacent(Box current, Box next, boolean rows) {
+		if (rows) {
+			return Math.abs(current.minY - next.minY) < EPSILON && Math.abs(current.maxY - next.maxY) < EPSILON
+					&& next.minX <= current.maxX + EPSILON;
+		}
+		return Math.abs(current.minX - next.minX) < EPSILON && Math.abs(current.maxX - next.maxX) < EPSILON
+				&& next.minY <= current.maxY + EPSILON;
+	}
+}
@@ -0,0 +1,327 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Build the colliders of a tile map. The solid tiles are merged into the
+ * biggest rectangles (greedy meshing) and each rectangle is a static
+ * {@link ObjectModel}. Changing a tile only rebuilds the rectangles around it
+ *
+ * @author kong
+ *
+ */
+public class TileColliderBuilder {
+	private World world;
+
+	// the map, tiles[y * width + x], y = 0 is the bottom row
+	private int width;
+	private int height;
+	private boolean[] solids;
+	private int[] owners;
+
+	// in world [pixel]
+	private float tileSize;
+	private Vector2 origin;
+
+	// the model's parameters
+	private float density;
+	private float friction;
+	private float restitution;
+	private int category;
+	private int mask;
+	private String tag;
+
+	// rectangles: models[id], bounds[id * 4] = x, y, width, height (in tile)
+	private Array<ObjectModel> models;
+	private IntArray bounds;
+	private IntArray freeIds;
+	private int rectangleCount;
+
+	// statistic
+	private long buildTime;
+
+	// reusable
+	private Vector2 size = new Vector2();
+	private Vector2 position = new Vector2();
+	private IntArray removed = new IntArray();
+
+	/**
+	 * @param world:       world
+	 * @param tileSize:    size of a tile in world [pixel]
+	 * @param origin:      position of the bottom left tile in world [pixel]
+	 * @param friction:    friction of colliders
+	 * @param restitution: restitution of colliders
+	 * @param category:    category for filter collision
+	 * @param mask:        mask for filter collision
+	 * @param tag:         userData of colliders
+	 */
+	public TileColliderBuilder(World world, float tileSize, Vector2 origin, float friction, float restitution,
+			int category, int mask, String tag) {
+		this.world = world;
+		this.tileSize = tileSize;
+		this.origin = new Vector2(origin);
+		this.density = 0;
+		this.friction = friction;
+		this.restitution = restitution;
+		this.category = category;
+		this.mask = mask;
+		this.tag = tag;
+
+		models = new Array<ObjectModel>();
+		bounds = new IntArray();
+		freeIds = new IntArray();
+	}
+
+	/**
+	 * Build the colliders of the map, the old colliders are destroyed
+	 *
+	 * @param tiles: tiles[y][x], a tile is solid if it's not 0
+	 */
+	public void build(int[][] tiles) {
+		resize(tiles[0].length, tiles.length);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				solids[y * width + x] = tiles[y][x] != 0;
+			}
+		}
+		rebuild();
+	}
+
+	/**
+	 * Build the colliders of the map, the old colliders are destroyed
+	 *
+	 * @param tiles: tiles[y][x]
+	 */
+	public void build(boolean[][] tiles) {
+		resize(tiles[0].length, tiles.length);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				solids[y * width + x] = tiles[y][x];
+			}
+		}
+		rebuild();
+	}
+
+	/**
+	 * Change a tile, only the rectangles around it are rebuilt. Don't call it
+	 * inside world.step()
+	 */
+	public void setTile(int x, int y, boolean solid) {
+		if (solids[y * width + x] == solid) {
+			return;
+		}
+		solids[y * width + x] = solid;
+
+		long start = System.nanoTime();
+
+		// remove the rectangles touch the tile and its neighbours
+		removed.clear();
+		for (int j = Math.max(0, y - 1); j <= Math.min(height - 1, y + 1); j++) {
+			for (int i = Math.max(0, x - 1); i <= Math.min(width - 1, x + 1); i++) {
+				int id = owners[j * width + i];
+				if (id >= 0 && !removed.contains(id)) {
+					removed.add(id);
+				}
+			}
+		}
+
+		int minX = x, minY = y, maxX = x, maxY = y;
+		for (int i = 0; i < removed.size; i++) {
+			int id = removed.get(i);
+			minX = Math.min(minX, bounds.get(id * 4));
+			minY = Math.min(minY, bounds.get(id * 4 + 1));
+			maxX = Math.max(maxX, bounds.get(id * 4) + bounds.get(id * 4 + 2) - 1);
+			maxY = Math.max(maxY, bounds.get(id * 4 + 1) + bounds.get(id * 4 + 3) - 1);
+			removeRectangle(id);
+		}
+
+		// mesh the region again
+		mesh(minX, minY, maxX, maxY);
+
+		buildTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Check if the tile is solid
+	 */
+	public boolean isSolid(int x, int y) {
+		return solids[y * width + x];
+	}
+
+	/**
+	 * Retrieve the number of rectangles (bodies)
+	 */
+	public int getRectangleCount() {
+		return rectangleCount;
+	}
+
+	/**
+	 * Retrieve the model of the tile, <code>null</code> if it's not solid
+	 */
+	public ObjectModel getModel(int x, int y) {
+		int id = owners[y * width + x];
+		return id >= 0 ? models.get(id) : null;
+	}
+
+	/**
+	 * Retrieve the time of the last build or rebuild, unit: nanosecond
+	 */
+	public long getBuildTime() {
+		return buildTime;
+	}
+
+	/**
+	 * Destroy all colliders
+	 */
+	public void dispose() {
+		for (int i = 0; i < models.size; i++) {
+			if (models.get(i) != null) {
+				models.get(i).dispose(world);
+			}
+		}
+		models.clear();
+		bounds.clear();
+		freeIds.clear();
+		rectangleCount = 0;
+		if (owners != null) {
+			for (int i = 0; i < owners.length; i++) {
+				owners[i] = -1;
+			}
+		}
+	}
+
+	// Set the size of map
+	private void resize(int width, int height) {
+		dispose();
+		this.width = width;
+		this.height = height;
+		solids = new boolean[width * height];
+		owners = new int[width * height];
+		for (int i = 0; i < owners.length; i++) {
+			owners[i] = -1;
+		}
+	}
+
+	// Mesh the whole map
+	private void rebuild() {
+		long start = System.nanoTime();
+		mesh(0, 0, width - 1, height - 1);
+		buildTime = System.nanoTime() - start;
+	}
+
+	// Greedy meshing of the free solid tiles in the region
+	private void mesh(int minX, int minY, int maxX, int maxY) {
+		for (int y = minY; y <= maxY; y++) {
+			for (int x = minX; x <= maxX; x++) {
+				if (!isFree(x, y)) {
+					continue;
+				}
+
+				// extend to the right
+				int w = 1;
+				while (x + w <= maxX && isFree(x + w, y)) {
+					w++;
+				}
+
+				// extend to the top while the whole row is free
+				int h = 1;
+				boolean grow = true;
+				while (grow && y + h <= maxY) {
+					for (int i = x; i < x + w; i++) {
+						if (!isFree(i, y + h)) {
+							grow = false;
+							break;
+						}
+					}
+					if (grow) {
+						h++;
+					}
+				}
+
+				addRectangle(x, y, w, h);
+			}
+		}
+	}
+
+	// Check if the tile is solid and not covered
+	private boolean isFree(int x, int y) {
+		int index = y * width + x;
+		return solids[index] && owners[index] < 0;
+	}
+
+	// Create the model of the rectangle
+	private void addRectangle(int x, int y, int w, int h) {
+		size.set(w * tileSize, h * tileSize);
+		position.set(origin.x + x * tileSize, origin.y + y * tileSize);
+		ObjectModel model = new ObjectModel(world, ObjectModel.STATIC, ObjectModel.POLYGON, size.cpy(), 0, position,
+				0, density, friction, restitution, category, mask, tag);
+
+		int id;
+		if (freeIds.size > 0) {
+			id = freeIds.pop();
+			models.set(id, model);
+			bounds.set(id * 4, x);
+			bounds.set(id * 4 + 1, y);
+			bounds.set(id * 4 + 2, w);
+			bounds.set(id * 4 + 3, h);
+		} else {
+			id = models.size;
+			models.add(model);
+			bounds.add(x);
+			bounds.add(y);
+			bounds.add(w);
+			bounds.add(h);
+		}
+
+		for (int j = y; j < y + h; j++) {
+			for (int i = x; i < x + w; i++) {
+				owners[j * width + i] = id;
+			}
+		}
+		rectangleCount++;
+	}
+
+	// Destroy the model of the rectangle
+	private void removeRectangle(int id) {
+		int x = bounds.get(id * 4);
+		int y = bounds.get(id * 4 + 1);
+		int w = bounds.get(id * 4 + 2);
+		int h = bounds.get(id * 4 + 3);
+		for (int j = y; j < y + h; j++) {
+			for (int i = x; i < x + w; i++) {
+				owners[j * width + i] = -1;
+			}
+		}
+
+		models.get(id).dispose(world);
+		models.set(id, null);
+		freeIds.add(id);
+		rectangleCount--;
+	}
+}
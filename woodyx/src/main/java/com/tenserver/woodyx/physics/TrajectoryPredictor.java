@@ -0,0 +1,376 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Predict the path of a launched model (aiming preview) on a shadow world
+ * which has only a copy of the static geometry and the projectile. The bodies
+ * are reused between the predictions and the result is kept until the launch
+ * parameters change more than the tolerance
+ * <p>
+ * Call {@link #syncStatic(World)} when the level is loaded or its static
+ * geometry changes, {@link #setProjectile(ObjectModel)} when the projectile
+ * changes, then {@link #predict(float, float, float, float, int)} every frame
+ *
+ * @author kong
+ *
+ */
+public class TrajectoryPredictor {
+	private World shadow;
+	private float stepTime;
+
+	private Array<Body> statics;
+	private Body projectile;
+
+	// stop at the first contact of the projectile
+	private boolean stopOnContact;
+	private boolean touched;
+
+	// the result: points[i * 2] = x, y in box
+	private float[] points;
+	private int pointCount;
+
+	// the cache
+	private float tolerance;
+	private boolean valid;
+	private float lastX, lastY, lastVelocityX, lastVelocityY;
+	private int lastSteps;
+
+	// statistic
+	private long predictTime;
+	private int cacheHits;
+
+	// reusable
+	private BodyDef bodyDef = new BodyDef();
+	private FixtureDef fixtureDef = new FixtureDef();
+	private Array<Body> bodies = new Array<Body>();
+	private Vector2 vertex = new Vector2();
+	private float[] vertices = new float[16];
+
+	/**
+	 * @param gravity:   gravity of the real world
+	 * @param stepTime:  the step time of the real world, unit: second
+	 * @param maxSteps:  the maximum predicted steps
+	 * @param tolerance: the launch parameters (in box) can change this much
+	 *                   without a new prediction
+	 */
+	public TrajectoryPredictor(Vector2 gravity, float stepTime, int maxSteps, float tolerance) {
+		shadow = new World(gravity, false);
+		this.stepTime = stepTime;
+		this.tolerance = tolerance;
+		statics = new Array<Body>();
+		points = new float[(maxSteps + 1) * 2];
+		stopOnContact = true;
+
+		shadow.setContactListener(new ContactListener() {
+			@Override
+			public void beginContact(Contact contact) {
+				if (contact.getFixtureA().getBody() == projectile || contact.getFixtureB().getBody() == projectile) {
+					touched = true;
+				}
+			}
+
+			@Override
+			public void endContact(Contact contact) {
+			}
+
+			@Override
+			public void preSolve(Contact contact, Manifold oldManifold) {
+			}
+
+			@Override
+			public void postSolve(Contact contact, ContactImpulse impulse) {
+			}
+		});
+	}
+
+	/**
+	 * Copy the static geometry of the real world, the old copy is destroyed
+	 */
+	public void syncStatic(World world) {
+		for (int i = 0; i < statics.size; i++) {
+			shadow.destroyBody(statics.get(i));
+		}
+		statics.clear();
+
+		world.getBodies(bodies);
+		bodyDef.type = BodyType.StaticBody;
+		for (int i = 0; i < bodies.size; i++) {
+			Body body = bodies.get(i);
+			if (body.getType() != BodyType.StaticBody) {
+				continue;
+			}
+
+			bodyDef.position.set(body.getPosition());
+			bodyDef.angle = body.getAngle();
+			Body copy = shadow.createBody(bodyDef);
+			copyFixtures(body, copy, true);
+			statics.add(copy);
+		}
+		bodies.clear();
+		valid = false;
+	}
+
+	/**
+	 * Copy the shape, mass and damping of the projectile
+	 */
+	public void setProjectile(ObjectModel model) {
+		if (projectile != null) {
+			shadow.destroyBody(projectile);
+		}
+
+		Body body = model.getBody();
+		bodyDef.type = BodyType.DynamicBody;
+		bodyDef.position.set(body.getPosition());
+		bodyDef.angle = body.getAngle();
+		bodyDef.linearDamping = body.getLinearDamping();
+		bodyDef.angularDamping = body.getAngularDamping();
+		bodyDef.gravityScale = body.getGravityScale();
+		bodyDef.fixedRotation = body.isFixedRotation();
+		bodyDef.bullet = true;
+		projectile = shadow.createBody(bodyDef);
+		copyFixtures(body, projectile, false);
+
+		// reset the reused definition
+		bodyDef.linearDamping = 0;
+		bodyDef.angularDamping = 0;
+		bodyDef.gravityScale = 1;
+		bodyDef.fixedRotation = false;
+		bodyDef.bullet = false;
+		valid = false;
+	}
+
+	/**
+	 * Predict the path, the points are kept until the launch changes more than
+	 * the tolerance
+	 *
+	 * @param x:         start x in box
+	 * @param y:         start y in box
+	 * @param velocityX: launch velocity in box
+	 * @param velocityY: launch velocity in box
+	 * @param steps:     the number of steps to predict
+	 * @return the number of points
+	 */
+	public int predict(float x, float y, float velocityX, float velocityY, int steps) {
+		if (projectile == null) {
+			return 0;
+		}
+		steps = Math.min(steps, points.length / 2 - 1);
+
+		if (valid && steps == lastSteps && Math.abs(x - lastX) <= tolerance && Math.abs(y - lastY) <= tolerance
+				&& Math.abs(velocityX - lastVelocityX) <= tolerance
+				&& Math.abs(velocityY - lastVelocityY) <= tolerance) {
+			cacheHits++;
+			return pointCount;
+		}
+
+		long start = System.nanoTime();
+
+		projectile.setTransform(x, y, 0);
+		projectile.setLinearVelocity(velocityX, velocityY);
+		projectile.setAngularVelocity(0);
+		projectile.setAwake(true);
+		touched = false;
+
+		points[0] = x;
+		points[1] = y;
+		pointCount = 1;
+		for (int i = 0; i < steps; i++) {
+			shadow.step(stepTime, BoxUtility.VELOCITY_ITER, BoxUtility.POSITION_ITER);
+			Vector2 position = projectile.getPosition();
+			points[pointCount * 2] = position.x;
+			points[pointCount * 2 + 1] = position.y;
+			pointCount++;
+			if (touched && stopOnContact) {
+				break;
+			}
+		}
+
+		lastX = x;
+		lastY = y;
+		lastVelocityX = velocityX;
+		lastVelocityY = velocityY;
+		lastSteps = steps;
+		valid = true;
+
+		predictTime = System.nanoTime() - start;
+		return pointCount;
+	}
+
+	/**
+	 * Force the next prediction
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Stop the prediction at the first contact (default) or not
+	 */
+	public void setStopOnContact(boolean stopOnContact) {
+		this.stopOnContact = stopOnContact;
+		valid = false;
+	}
+
+	/**
+	 * Retrieve the points: x = points[i * 2], y = points[i * 2 + 1], in box
+	 */
+	public float[] getPoints() {
+		return points;
+	}
+
+	/**
+	 * Retrieve the number of points of the last prediction
+	 */
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Check if the projectile touched something in the last prediction
+	 */
+	public boolean isTouched() {
+		return touched;
+	}
+
+	/**
+	 * Retrieve the shadow world
+	 */
+	public World getShadow() {
+		return shadow;
+	}
+
+	/**
+	 * Retrieve the time of the last prediction, unit: nanosecond
+	 */
+	public long getPredictTime() {
+		return predictTime;
+	}
+
+	/**
+	 * Retrieve the number of predictions answered by the cache
+	 */
+	public int getCacheHits() {
+		return cacheHits;
+	}
+
+	public void dispose() {
+		shadow.dispose();
+		statics.clear();
+		projectile = null;
+	}
+
+	// Copy the fixtures of the body, the sensors are skipped
+	private void copyFixtures(Body source, Body target, boolean isStatic) {
+		Array<Fixture> fixtures = source.getFixtureList();
+		for (int i = 0; i < fixtures.size; i++) {
+			Fixture fixture = fixtures.get(i);
+			if (fixture.isSensor()) {
+				continue;
+			}
+
+			Shape shape = copyShape(fixture.getShape());
+			if (shape == null) {
+				continue;
+			}
+			fixtureDef.shape = shape;
+			fixtureDef.density = isStatic ? 0 : fixture.getDensity();
+			fixtureDef.friction = fixture.getFriction();
+			fixtureDef.restitution = fixture.getRestitution();
+			fixtureDef.filter.categoryBits = fixture.getFilterData().categoryBits;
+			fixtureDef.filter.maskBits = fixture.getFilterData().maskBits;
+			fixtureDef.filter.groupIndex = fixture.getFilterData().groupIndex;
+			target.createFixture(fixtureDef);
+			shape.dispose();
+		}
+		fixtureDef.shape = null;
+	}
+
+	// Create a copy of the shape
+	private Shape copyShape(Shape shape) {
+		switch (shape.getType()) {
+		case Circle:
+			CircleShape circle = new CircleShape();
+			circle.setRadius(shape.getRadius());
+			circle.setPosition(((CircleShape) shape).getPosition());
+			return circle;
+		case Polygon:
+			PolygonShape polygon = (PolygonShape) shape;
+			int count = polygon.getVertexCount();
+			for (int i = 0; i < count; i++) {
+				polygon.getVertex(i, vertex);
+				vertices[i * 2] = vertex.x;
+				vertices[i * 2 + 1] = vertex.y;
+			}
+			PolygonShape polygonCopy = new PolygonShape();
+			polygonCopy.set(vertices, 0, count * 2);
+			return polygonCopy;
+		case Edge:
+			EdgeShape edge = (EdgeShape) shape;
+			Vector2 vertex1 = new Vector2();
+			Vector2 vertex2 = new Vector2();
+			edge.getVertex1(vertex1);
+			edge.getVertex2(vertex2);
+			EdgeShape edgeCopy = new EdgeShape();
+			edgeCopy.set(vertex1, vertex2);
+			return edgeCopy;
+		case Chain:
+			ChainShape chain = (ChainShape) shape;
+			// a loop repeats its first vertex at the end
+			int size = chain.isLooped() ? chain.getVertexCount() - 1 : chain.getVertexCount();
+			Vector2[] chainVertices = new Vector2[size];
+			for (int i = 0; i < size; i++) {
+				chainVertices[i] = new Vector2();
+				chain.getVertex(i, chainVertices[i]);
+			}
+			ChainShape chainCopy = new ChainShape();
+			if (chain.isLooped()) {
+				chainCopy.createLoop(chainVertices);
+			} else {
+				chainCopy.createChain(chainVertices);
+			}
+			return chainCopy;
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Keep the position and angle of all registered models in the primitive
+ * arrays (one array per field). {@link #capture()} reads the bodies once after
+ * each world.step(), sprites, cameras and game logic read the arrays instead of
+ * the bodies. Sleeping bodies are skipped
+ *
+ * @author kong
+ *
+ */
+public class TransformBuffer {
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private Array<ObjectModel> models;
+
+	// the current state, in box, unit of angle: radian
+	private float[] x;
+	private float[] y;
+	private float[] angle;
+
+	// the state before the last capture
+	private float[] previousX;
+	private float[] previousY;
+	private float[] previousAngle;
+
+	private boolean[] changed;
+	private int changedCount;
+
+	public TransformBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TransformBuffer(int capacity) {
+		models = new Array<ObjectModel>(false, capacity);
+		x = new float[capacity];
+		y = new float[capacity];
+		angle = new float[capacity];
+		previousX = new float[capacity];
+		previousY = new float[capacity];
+		previousAngle = new float[capacity];
+		changed = new boolean[capacity];
+		changedCount = 0;
+	}
+
+	/**
+	 * Register the model
+	 *
+	 * @return the index of model in the buffer
+	 */
+	public int add(ObjectModel model) {
+		if (model.getTransformIndex() >= 0) {
+			return model.getTransformIndex();
+		}
+
+		int index = models.size;
+		if (index == x.length) {
+			resize(Math.max(DEFAULT_CAPACITY, (int) (index * 1.75f)));
+		}
+		models.add(model);
+		model.setTransformIndex(index);
+
+		// initialize the state
+		Vector2 position = model.getBody().getPosition();
+		x[index] = previousX[index] = position.x;
+		y[index] = previousY[index] = position.y;
+		angle[index] = previousAngle[index] = model.getBody().getAngle();
+		changed[index] = true;
+
+		return index;
+	}
+
+	/**
+	 * Remove the model, the last model takes its index
+	 */
+	public void remove(ObjectModel model) {
+		int index = model.getTransformIndex();
+		if (index < 0 || index >= models.size || models.get(index) != model) {
+			return;
+		}
+
+		// the last model takes the index (unordered array)
+		int last = models.size - 1;
+		models.removeIndex(index);
+		if (index != last) {
+			models.get(index).setTransformIndex(index);
+			x[index] = x[last];
+			y[index] = y[last];
+			angle[index] = angle[last];
+			previousX[index] = previousX[last];
+			previousY[index] = previousY[last];
+			previousAngle[index] = previousAngle[last];
+			changed[index] = changed[last];
+		}
+		model.setTransformIndex(-1);
+	}
+
+	/**
+	 * Remove all models
+	 */
+	public void clear() {
+		for (int i = 0; i < models.size; i++) {
+			models.get(i).setTransformIndex(-1);
+		}
+		models.clear();
+		changedCount = 0;
+	}
+
+	/**
+	 * Read the bodies, usually after world.step()
+	 *
+	 * @return the number of changed entries
+	 */
+	public int capture() {
+		int size = models.size;
+
+		// the current state becomes the previous one
+		System.arraycopy(x, 0, previousX, 0, size);
+		System.arraycopy(y, 0, previousY, 0, size);
+		System.arraycopy(angle, 0, previousAngle, 0, size);
+
+		changedCount = 0;
+		for (int i = 0; i < size; i++) {
+			Body body = models.get(i).getBody();
+			if (body == null || !body.isAwake()) {
+				changed[i] = false;
+				continue;
+			}
+
+			Vector2 position = body.getPosition();
+			float bodyAngle = body.getAngle();
+			if (position.x != x[i] || position.y != y[i] || bodyAngle != angle[i]) {
+				x[i] = position.x;
+				y[i] = position.y;
+				angle[i] = bodyAngle;
+				changed[i] = true;
+				changedCount++;
+			} else {
+				changed[i] = false;
+			}
+		}
+
+		return changedCount;
+	}
+
+	/**
+	 * Retrieve the number of registered models
+	 */
+	public int size() {
+		return models.size;
+	}
+
+	/**
+	 * Retrieve the model by index
+	 */
+	public ObjectModel getModel(int index) {
+		return models.get(index);
+	}
+
+	/**
+	 * Retrieve the x positions in box, indexed by
+	 * {@link ObjectModel#getTransformIndex()}
+	 */
+	public float[] getX() {
+		return x;
+	}
+
+	/**
+	 * Retrieve the y positions in box
+	 */
+	public float[] getY() {
+		return y;
+	}
+
+	/**
+	 * Retrieve the angles, unit: radian
+	 */
+	public float[] getAngle() {
+		return angle;
+	}
+
+	/**
+	 * Retrieve the x positions before the last capture
+	 */
+	public float[] getPreviousX() {
+		return previousX;
+	}
+
+	/**
+	 * Retrieve the y positions before the last capture
+	 */
+	public float[] getPreviousY() {
+		return previousY;
+	}
+
+	/**
+	 * Retrieve the angles before the last capture
+	 */
+	public float[] getPreviousAngle() {
+		return previousAngle;
+	}
+
+	/**
+	 * Check if the entry was changed in the last capture
+	 */
+	public boolean isChanged(int index) {
+		return changed[index];
+	}
+
+	/**
+	 * Retrieve the number of changed entries in the last capture
+	 */
+	public int getChangedCount() {
+		return changedCount;
+	}
+
+	// Resize the arrays
+	private void resize(int capacity) {
+		x = copy(x, capacity);
+		y = copy(y, capacity);
+		angle = copy(angle, capacity);
+		previousX = copy(previousX, capacity);
+		previousY = copy(previousY, capacity);
+		previousAngle = copy(previousAngle, capacity);
+
+		boolean[] newChanged = new boolean[capacity];
+		System.arraycopy(changed, 0, newChanged, 0, changed.length);
+		changed = newChanged;
+	}
+
+	// Copy the array into a new one
+	private float[] copy(float[] array, int capacity) {
+		float[] result = new float[capacity];
+		System.arraycopy(array, 0, result, 0, array.length);
+		return result;
+	}
+}
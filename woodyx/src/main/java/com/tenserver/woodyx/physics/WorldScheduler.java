@@ -0,0 +1,287 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Step many independent worlds in parallel. Each world is pinned to one worker
+ * thread (Box2D is not thread safe, a world must only be touched by one
+ * thread), has its own fixed step time and reports its step latency
+ *
+ * @author kong
+ *
+ */
+public class WorldScheduler {
+	private ArrayList<ExecutorService> workers;
+	private ArrayList<Entry> entries;
+	private int nextWorker;
+
+	/**
+	 * Called on the world's thread after the world is stepped, game logic of a
+	 * world should run here
+	 */
+	public interface StepListener {
+		public void onStep(World world, int subSteps);
+	}
+
+	/**
+	 * A scheduled world
+	 */
+	public static class Entry {
+		private final World world;
+		private final WorldStepper stepper;
+		private final StepListener listener;
+		private final int worker;
+
+		// statistic, unit: nanosecond
+		private volatile long lastStepTime;
+		private volatile long maxStepTime;
+		private volatile long totalStepTime;
+		private volatile long updates;
+
+		Entry(World world, WorldStepper stepper, StepListener listener, int worker) {
+			this.world = world;
+			this.stepper = stepper;
+			this.listener = listener;
+			this.worker = worker;
+		}
+
+		// Step the world, on its worker thread
+		void update(float deltaTime) {
+			long start = System.nanoTime();
+			int subSteps = stepper.update(world, deltaTime, null);
+			if (listener != null) {
+				listener.onStep(world, subSteps);
+			}
+			long time = System.nanoTime() - start;
+
+			lastStepTime = time;
+			if (time > maxStepTime) {
+				maxStepTime = time;
+			}
+			totalStepTime += time;
+			updates++;
+		}
+
+		/**
+		 * Retrieve the world
+		 */
+		public World getWorld() {
+			return world;
+		}
+
+		/**
+		 * Retrieve the stepper of the world
+		 */
+		public WorldStepper getStepper() {
+			return stepper;
+		}
+
+		/**
+		 * Retrieve the index of the worker thread
+		 */
+		public int getWorker() {
+			return worker;
+		}
+
+		/**
+		 * Retrieve the time of the last update, unit: nanosecond
+		 */
+		public long getLastStepTime() {
+			return lastStepTime;
+		}
+
+		/**
+		 * Retrieve the longest update, unit: nanosecond
+		 */
+		public long getMaxStepTime() {
+			return maxStepTime;
+		}
+
+		/**
+		 * Retrieve the average update time, unit: nanosecond
+		 */
+		public long getAverageStepTime() {
+			long count = updates;
+			if (count == 0) {
+				return 0;
+			}
+			return totalStepTime / count;
+		}
+
+		/**
+		 * Reset the statistic
+		 */
+		public void resetStatistic() {
+			lastStepTime = 0;
+			maxStepTime = 0;
+			totalStepTime = 0;
+			updates = 0;
+		}
+	}
+
+	/**
+	 * Create the scheduler with one worker per available processor
+	 */
+	public WorldScheduler() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads: number of worker threads
+	 */
+	public WorldScheduler(int threads) {
+		workers = new ArrayList<ExecutorService>(threads);
+		entries = new ArrayList<Entry>();
+		nextWorker = 0;
+
+		for (int i = 0; i < threads; i++) {
+			final int index = i;
+			workers.add(Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "woodyx-world-" + index);
+					thread.setDaemon(true);
+					return thread;
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Add the world, it's pinned to the next worker (round robin)
+	 *
+	 * @param world:       world, don't touch it outside its worker after adding
+	 * @param stepTime:    the fixed step time of this world, unit: second
+	 * @param maxSubSteps: the maximum steps per update
+	 * @param listener:    called after each update, can be <code>null</code>
+	 */
+	public synchronized Entry add(World world, float stepTime, int maxSubSteps, StepListener listener) {
+		Entry entry = new Entry(world, new WorldStepper(stepTime, maxSubSteps), listener, nextWorker);
+		nextWorker = (nextWorker + 1) % workers.size();
+		entries.add(entry);
+		return entry;
+	}
+
+	/**
+	 * Remove the world, the world is not disposed
+	 */
+	public synchronized void remove(World world) {
+		for (int i = 0; i < entries.size(); i++) {
+			if (entries.get(i).world == world) {
+				entries.remove(i);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Update all worlds in parallel and wait until they finished. If a world
+	 * throws, the others still finish their update and the first failure is
+	 * rethrown here
+	 *
+	 * @param deltaTime: the elapsed time, unit: second
+	 */
+	public synchronized void update(final float deltaTime) {
+		final CountDownLatch latch = new CountDownLatch(entries.size());
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		for (int i = 0; i < entries.size(); i++) {
+			final Entry entry = entries.get(i);
+			workers.get(entry.worker).execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						entry.update(deltaTime);
+					} catch (Throwable e) {
+						// keep the first failure, the worker thread survives
+						failure.compareAndSet(null, e);
+					} finally {
+						latch.countDown();
+					}
+				}
+			});
+		}
+
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GdxRuntimeException("Interrupted while stepping the worlds", e);
+		}
+
+		if (failure.get() != null) {
+			throw new GdxRuntimeException("Error while stepping a world", failure.get());
+		}
+	}
+
+	/**
+	 * Run the task on the world's worker thread, use it to touch a scheduled
+	 * world from outside
+	 *
+	 * @return the future of the task, get() rethrows its failure
+	 */
+	public Future<?> post(Entry entry, Runnable task) {
+		return workers.get(entry.worker).submit(task);
+	}
+
+	/**
+	 * Retrieve the number of worlds
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Retrieve the scheduled world by index
+	 */
+	public synchronized Entry getEntry(int index) {
+		return entries.get(index);
+	}
+
+	/**
+	 * Retrieve the number of worker threads
+	 */
+	public int getThreads() {
+		return workers.size();
+	}
+
+	/**
+	 * Stop the workers, the worlds are not disposed
+	 */
+	public void dispose() {
+		for (int i = 0; i < workers.size(); i++) {
+			workers.get(i).shutdown();
+		}
+	}
+}
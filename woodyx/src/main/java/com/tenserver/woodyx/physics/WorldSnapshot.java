@@ -0,0 +1,270 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Save and restore the state of models and joints (rollback, rewind). The
+ * state is written into a reusable direct buffer, nothing is allocated per
+ * body. Bodies and joints must be given in the same order for saving and
+ * restoring
+ *
+ * @author kong
+ *
+ */
+public class WorldSnapshot {
+	// x, y, angle, velocity x, velocity y, angular velocity + flags
+	public static final int BODY_SIZE = 6 * 4 + 1;
+	public static final int JOINT_SIZE = 1;
+	private static final int HEADER_SIZE = 4 + 4;
+
+	private static final byte FLAG_EXIST = 1;
+	private static final byte FLAG_AWAKE = 2;
+	private static final byte FLAG_ACTIVE = 4;
+
+	private ByteBuffer buffer;
+	private int bodyCount;
+	private int jointCount;
+
+	// statistic, unit: nanosecond
+	private long saveTime;
+	private long restoreTime;
+
+	/**
+	 * @param bodies: the expected number of bodies
+	 * @param joints: the expected number of joints
+	 */
+	public WorldSnapshot(int bodies, int joints) {
+		buffer = ByteBuffer.allocateDirect(HEADER_SIZE + bodies * BODY_SIZE + joints * JOINT_SIZE);
+		buffer.order(ByteOrder.nativeOrder());
+		bodyCount = 0;
+		jointCount = 0;
+	}
+
+	/**
+	 * Save the state
+	 *
+	 * @param models: the models, can't be <code>null</code>
+	 * @param joints: the joints, can be <code>null</code>
+	 */
+	public void save(Array<ObjectModel> models, Array<ObjectsJoint> joints) {
+		long start = System.nanoTime();
+
+		bodyCount = models.size;
+		jointCount = joints != null ? joints.size : 0;
+		ensureCapacity(HEADER_SIZE + bodyCount * BODY_SIZE + jointCount * JOINT_SIZE);
+
+		buffer.clear();
+		buffer.putInt(bodyCount);
+		buffer.putInt(jointCount);
+
+		for (int i = 0; i < bodyCount; i++) {
+			Body body = models.get(i).getBody();
+			if (body == null) {
+				for (int j = 0; j < 6; j++) {
+					buffer.putFloat(0);
+				}
+				buffer.put((byte) 0);
+				continue;
+			}
+
+			Vector2 position = body.getPosition();
+			buffer.putFloat(position.x);
+			buffer.putFloat(position.y);
+			buffer.putFloat(body.getAngle());
+			Vector2 velocity = body.getLinearVelocity();
+			buffer.putFloat(velocity.x);
+			buffer.putFloat(velocity.y);
+			buffer.putFloat(body.getAngularVelocity());
+
+			byte flags = FLAG_EXIST;
+			if (body.isAwake()) {
+				flags |= FLAG_AWAKE;
+			}
+			if (body.isActive()) {
+				flags |= FLAG_ACTIVE;
+			}
+			buffer.put(flags);
+		}
+
+		for (int i = 0; i < jointCount; i++) {
+			buffer.put(joints.get(i).getJoint() != null ? FLAG_EXIST : 0);
+		}
+
+		buffer.flip();
+		saveTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Load a state received as bytes (see {@link #getBuffer()}), from the
+	 * source's position to its limit. The header is checked
+	 */
+	public void load(ByteBuffer source) {
+		int size = source.remaining();
+		if (size < HEADER_SIZE) {
+			throw new GdxRuntimeException("The snapshot is too short: " + size + " bytes");
+		}
+		ensureCapacity(size);
+		buffer.clear();
+		buffer.put(source);
+		buffer.flip();
+		readHeader();
+	}
+
+	/**
+	 * Restore the saved state. The destroyed joints are created again (skipped if
+	 * a body of the joint was destroyed since), the joints created after saving
+	 * are destroyed. Nothing is changed if a destroyed joint has no complete
+	 * definition (see {@link ObjectsJoint#hasDefinition()}). Don't call it inside
+	 * world.step()
+	 *
+	 * @param world:  world
+	 * @param models: the same models of saving
+	 * @param joints: the same joints of saving, can be <code>null</code>
+	 */
+	public void restore(World world, Array<ObjectModel> models, Array<ObjectsJoint> joints) {
+		if (world.isLocked()) {
+			throw new GdxRuntimeException("The world is locked, can't restore inside world.step()");
+		}
+		readHeader();
+		if (models.size != bodyCount || (joints != null ? joints.size : 0) != jointCount) {
+			throw new GdxRuntimeException("The models or joints don't match the snapshot");
+		}
+
+		// check the joints before changing anything
+		buffer.position(HEADER_SIZE + bodyCount * BODY_SIZE);
+		for (int i = 0; i < jointCount; i++) {
+			ObjectsJoint joint = joints.get(i);
+			if (buffer.get() == FLAG_EXIST && joint.getJoint() == null && !joint.hasDefinition()) {
+				buffer.rewind();
+				throw new IllegalStateException("The joint " + i + " has no definition, it can't be restored");
+			}
+		}
+
+		long start = System.nanoTime();
+
+		buffer.position(HEADER_SIZE);
+		for (int i = 0; i < bodyCount; i++) {
+			float x = buffer.getFloat();
+			float y = buffer.getFloat();
+			float angle = buffer.getFloat();
+			float velocityX = buffer.getFloat();
+			float velocityY = buffer.getFloat();
+			float angularVelocity = buffer.getFloat();
+			byte flags = buffer.get();
+
+			ObjectModel model = models.get(i);
+			Body body = model.getBody();
+			if (body == null || (flags & FLAG_EXIST) == 0) {
+				continue;
+			}
+
+			body.setTransform(x, y, angle);
+			body.setLinearVelocity(velocityX, velocityY);
+			body.setAngularVelocity(angularVelocity);
+			body.setActive((flags & FLAG_ACTIVE) != 0);
+			body.setAwake((flags & FLAG_AWAKE) != 0);
+			model.savePreviousTransform();
+		}
+
+		for (int i = 0; i < jointCount; i++) {
+			ObjectsJoint joint = joints.get(i);
+			boolean exist = buffer.get() == FLAG_EXIST;
+			if (exist && joint.getJoint() == null) {
+				// the definition keeps the destroyed body, it can't be used
+				if (joint.hasBodies()) {
+					joint.createJoint(world);
+				}
+			} else if (!exist && joint.getJoint() != null) {
+				joint.dispose(world);
+			}
+		}
+
+		buffer.rewind();
+		restoreTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Retrieve the buffer, e.g. for sending; its limit is the size of the state
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Retrieve the number of saved bodies
+	 */
+	public int getBodyCount() {
+		return bodyCount;
+	}
+
+	/**
+	 * Retrieve the number of saved joints
+	 */
+	public int getJointCount() {
+		return jointCount;
+	}
+
+	/**
+	 * Retrieve the time of the last saving, unit: nanosecond
+	 */
+	public long getSaveTime() {
+		return saveTime;
+	}
+
+	/**
+	 * Retrieve the time of the last restoring, unit: nanosecond
+	 */
+	public long getRestoreTime() {
+		return restoreTime;
+	}
+
+	// Read and check the counts of the header
+	private void readHeader() {
+		int bodies = buffer.getInt(0);
+		int joints = buffer.getInt(4);
+		if (bodies < 0 || joints < 0 || buffer.limit() < HEADER_SIZE + bodies * BODY_SIZE + joints * JOINT_SIZE) {
+			throw new GdxRuntimeException("The snapshot is corrupted: " + bodies + " bodies, " + joints
+					+ " joints in " + buffer.limit() + " bytes");
+		}
+		bodyCount = bodies;
+		jointCount = joints;
+	}
+
+	// Grow the buffer if it's needed
+	private void ensureCapacity(int size) {
+		if (buffer.capacity() < size) {
+			buffer = ByteBuffer.allocateDirect(size + size / 2);
+			buffer.order(ByteOrder.nativeOrder());
+		}
+	}
+}
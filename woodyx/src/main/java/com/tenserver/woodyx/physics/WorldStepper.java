@@ -0,0 +1,250 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.physics;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Step the world with a fixed time step. The frame time is accumulated and
+ * consumed in steps of the same length, at most <code>maxSubSteps</code> per
+ * frame, the remaining time is exposed as an interpolation alpha for rendering
+ *
+ * @author kong
+ *
+ */
+public class WorldStepper {
+	// default values
+	public static final float DEFAULT_STEP_TIME = 1 / 60f;
+	public static final int DEFAULT_MAX_SUB_STEPS = 5;
+
+	private float stepTime;
+	private int maxSubSteps;
+
+	private float accumulator;
+	private float alpha;
+	private int subSteps;
+
+	// read the bodies after each step, can be null
+	private TransformBuffer transformBuffer;
+
+	// apply the recorded commands after each step, can be null
+	private CommandBuffer commandBuffer;
+
+	// apply the forces before each step, can be null
+	private ForceFieldSystem forceFields;
+
+	// check the breakable joints after each step, can be null
+	private JointMonitor jointMonitor;
+
+	/**
+	 * Create a stepper with the default step time and maximum sub steps
+	 */
+	public WorldStepper() {
+		this(DEFAULT_STEP_TIME, DEFAULT_MAX_SUB_STEPS);
+	}
+
+	/**
+	 * @param stepTime:    the fixed step time, unit: second
+	 * @param maxSubSteps: the maximum steps per frame, the rest of the frame time
+	 *                     is dropped to keep the frame time stable
+	 */
+	public WorldStepper(float stepTime, int maxSubSteps) {
+		this.stepTime = stepTime;
+		this.maxSubSteps = maxSubSteps;
+		accumulator = 0;
+		alpha = 1;
+		subSteps = 0;
+	}
+
+	/**
+	 * Update the world
+	 *
+	 * @param world:     world
+	 * @param deltaTime: the frame time, unit: second
+	 * @param models:    the models need the interpolation, can be
+	 *                   <code>null</code>. The models destroyed in this update
+	 *                   are skipped, remove them from the array after it
+	 * @return the number of steps was made in this frame
+	 */
+	public int update(World world, float deltaTime, Array<ObjectModel> models) {
+		accumulator += deltaTime;
+
+		subSteps = 0;
+		while (accumulator >= stepTime && subSteps < maxSubSteps) {
+			// keep the state before the step for the interpolation
+			if (models != null) {
+				for (int i = 0; i < models.size; i++) {
+					// destroyed by the command buffer in a previous sub step
+					if (models.get(i).getBody() != null) {
+						models.get(i).savePreviousTransform();
+					}
+				}
+			}
+			// the forces are cleared after each step
+			if (forceFields != null) {
+				forceFields.apply(world);
+			}
+			world.step(stepTime, BoxUtility.VELOCITY_ITER, BoxUtility.POSITION_ITER);
+			if (jointMonitor != null) {
+				jointMonitor.scan(world, stepTime);
+			}
+			if (commandBuffer != null) {
+				commandBuffer.flush(world);
+			}
+			if (transformBuffer != null) {
+				transformBuffer.capture();
+			}
+			accumulator -= stepTime;
+			subSteps++;
+		}
+
+		// drop the time which can not be consumed in this frame
+		if (accumulator >= stepTime) {
+			accumulator %= stepTime;
+		}
+
+		// without models or transform buffer nothing keeps the previous state, the
+		// interpolation would blend from a stale one
+		if (models == null && transformBuffer == null) {
+			alpha = 1;
+		} else {
+			alpha = accumulator / stepTime;
+		}
+
+		return subSteps;
+	}
+
+	/**
+	 * Reset the accumulated time
+	 */
+	public void reset() {
+		accumulator = 0;
+		alpha = 1;
+		subSteps = 0;
+	}
+
+	/**
+	 * Set the buffer which is captured after each step, can be <code>null</code>
+	 */
+	public void setTransformBuffer(TransformBuffer transformBuffer) {
+		this.transformBuffer = transformBuffer;
+	}
+
+	/**
+	 * Retrieve the buffer which is captured after each step
+	 */
+	public TransformBuffer getTransformBuffer() {
+		return transformBuffer;
+	}
+
+	/**
+	 * Set the command buffer which is flushed after each step, can be
+	 * <code>null</code>
+	 */
+	public void setCommandBuffer(CommandBuffer commandBuffer) {
+		this.commandBuffer = commandBuffer;
+	}
+
+	/**
+	 * Retrieve the command buffer which is flushed after each step
+	 */
+	public CommandBuffer getCommandBuffer() {
+		return commandBuffer;
+	}
+
+	/**
+	 * Set the force fields which are applied before each step, can be
+	 * <code>null</code>
+	 */
+	public void setForceFields(ForceFieldSystem forceFields) {
+		this.forceFields = forceFields;
+	}
+
+	/**
+	 * Retrieve the force fields which are applied before each step
+	 */
+	public ForceFieldSystem getForceFields() {
+		return forceFields;
+	}
+
+	/**
+	 * Set the joint monitor which scans after each step, can be
+	 * <code>null</code>
+	 */
+	public void setJointMonitor(JointMonitor jointMonitor) {
+		this.jointMonitor = jointMonitor;
+	}
+
+	/**
+	 * Retrieve the joint monitor which scans after each step
+	 */
+	public JointMonitor getJointMonitor() {
+		return jointMonitor;
+	}
+
+	/**
+	 * Retrieve the interpolation alpha in range [0,1] between the previous and
+	 * the current state of bodies. It's 1 after an update without models and
+	 * without transform buffer, the previous state is not saved by it
+	 */
+	public float getAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * Retrieve the number of steps was made in the last update
+	 */
+	public int getSubSteps() {
+		return subSteps;
+	}
+
+	/**
+	 * Retrieve the fixed step time
+	 */
+	public float getStepTime() {
+		return stepTime;
+	}
+
+	/**
+	 * Set the fixed step time
+	 */
+	public void setStepTime(float stepTime) {
+		this.stepTime = stepTime;
+	}
+
+	/**
+	 * Retrieve the maximum steps per frame
+	 */
+	public int getMaxSubSteps() {
+		return maxSubSteps;
+	}
+
+	/**
+	 * Set the maximum steps per frame
+	 */
+	public void setMaxSubSteps(int maxSubSteps) {
+		this.maxSubSteps = maxSubSteps;
+	}
+}
@@ -0,0 +1,334 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.renderer;
+
+import java.nio.FloatBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Draw a very large number of quads of one texture (particles) next to
+ * {@link XRenderer}. Each quad is an instance: position, size, rotation,
+ * region and color, the quad's corners are expanded and rotated in the vertex
+ * shader. The data stays in the meshes' direct buffers and is updated in
+ * place, the unchanged instances cost nothing from one frame to the next
+ * <p>
+ * OpenGL ES 2.0 has no instanced drawing, so the instance's values are
+ * repeated for the 4 vertices of its quad: an instance is 48 floats against
+ * 20 for a sprite of SpriteBatch, and a changed mesh is uploaded whole. It's
+ * only cheaper than SpriteBatch when a small part of the instances changes per
+ * frame, for quads which all move every frame SpriteBatch writes and uploads
+ * less. Measure the crossover on the target device with
+ * {@link com.tenserver.woodyx.benchmark.InstancedBenchmark}
+ *
+ * @author kong
+ *
+ */
+public class InstancedRenderer implements Disposable {
+	// corner (2), center (2), size (2), rotation (1), region (4), color (1)
+	private static final int VERTEX_SIZE = 12;
+	private static final int INSTANCE_SIZE = VERTEX_SIZE * 4;
+	// the indices are shorts
+	private static final int MAX_PER_MESH = 16384;
+
+	private static final float[] CORNERS = { -0.5f, -0.5f, 0.5f, -0.5f, 0.5f, 0.5f, -0.5f, 0.5f };
+
+	private static final String VERTEX_SHADER = "attribute vec2 a_corner;\n" //
+			+ "attribute vec2 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "attribute vec2 a_size;\n" //
+			+ "attribute float a_rotation;\n" //
+			+ "attribute vec4 a_region;\n" //
+			+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "uniform mat4 u_projTrans;\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "void main() {\n" //
+			+ "  vec2 point = a_corner * a_size;\n" //
+			+ "  float c = cos(a_rotation);\n" //
+			+ "  float s = sin(a_rotation);\n" //
+			+ "  point = vec2(point.x * c - point.y * s, point.x * s + point.y * c) + "
+			+ ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "  vec2 t = a_corner + 0.5;\n" //
+			+ "  v_texCoords = vec2(mix(a_region.x, a_region.z, t.x), mix(a_region.w, a_region.y, t.y));\n" //
+			+ "  v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "  v_color.a = v_color.a * (255.0 / 254.0);\n" //
+			+ "  gl_Position = u_projTrans * vec4(point, 0.0, 1.0);\n" //
+			+ "}\n";
+
+	private static final String FRAGMENT_SHADER = "#ifdef GL_ES\n" //
+			+ "precision mediump float;\n" //
+			+ "#endif\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "uniform sampler2D u_texture;\n" //
+			+ "void main() {\n" //
+			+ "  gl_FragColor = v_color * texture2D(u_texture, v_texCoords);\n" //
+			+ "}\n";
+
+	private Texture texture;
+	private ShaderProgram shader;
+	private Mesh[] meshes;
+	private FloatBuffer[] buffers;
+	private boolean[] dirties;
+
+	private int capacity;
+	private int size;
+
+	// an instance, the corners are set once
+	private final float[] instance = new float[INSTANCE_SIZE];
+
+	// statistic of the last render
+	private int drawCalls;
+	private int uploadedMeshes;
+	private long renderTime;
+
+	/**
+	 * @param texture:  the texture of all instances (e.g. the particles' atlas)
+	 * @param capacity: the maximum number of instances
+	 */
+	public InstancedRenderer(Texture texture, int capacity) {
+		this.texture = texture;
+		this.capacity = capacity;
+		size = 0;
+		for (int i = 0; i < INSTANCE_SIZE; i += VERTEX_SIZE) {
+			instance[i] = CORNERS[(i / VERTEX_SIZE) * 2];
+			instance[i + 1] = CORNERS[(i / VERTEX_SIZE) * 2 + 1];
+		}
+
+		shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+		if (!shader.isCompiled()) {
+			throw new GdxRuntimeException("Error compiling shader: " + shader.getLog());
+		}
+
+		int meshCount = (capacity + MAX_PER_MESH - 1) / MAX_PER_MESH;
+		meshes = new Mesh[meshCount];
+		buffers = new FloatBuffer[meshCount];
+		dirties = new boolean[meshCount];
+
+		// the indices are the same for all meshes
+		int perMesh = Math.min(capacity, MAX_PER_MESH);
+		short[] indices = new short[perMesh * 6];
+		for (int i = 0, vertex = 0; i < indices.length; i += 6, vertex += 4) {
+			indices[i] = (short) vertex;
+			indices[i + 1] = (short) (vertex + 1);
+			indices[i + 2] = (short) (vertex + 2);
+			indices[i + 3] = (short) (vertex + 2);
+			indices[i + 4] = (short) (vertex + 3);
+			indices[i + 5] = (short) vertex;
+		}
+
+		for (int i = 0; i < meshCount; i++) {
+			int instances = Math.min(MAX_PER_MESH, capacity - i * MAX_PER_MESH);
+			meshes[i] = new Mesh(false, instances * 4, instances * 6,
+					new VertexAttribute(Usage.Generic, 2, "a_corner"),
+					new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+					new VertexAttribute(Usage.Generic, 2, "a_size"),
+					new VertexAttribute(Usage.Generic, 1, "a_rotation"),
+					new VertexAttribute(Usage.Generic, 4, "a_region"),
+					new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+			meshes[i].setIndices(indices, 0, instances * 6);
+
+			// the corners never change, they're written once
+			FloatBuffer buffer = meshes[i].getVerticesBuffer();
+			buffer.clear();
+			for (int vertex = 0; vertex < instances * 4; vertex++) {
+				buffer.put(vertex * VERTEX_SIZE, CORNERS[(vertex % 4) * 2]);
+				buffer.put(vertex * VERTEX_SIZE + 1, CORNERS[(vertex % 4) * 2 + 1]);
+			}
+			buffers[i] = buffer;
+			dirties[i] = true;
+		}
+	}
+
+	/**
+	 * Write the instance in place
+	 *
+	 * @param index:    from 0 to capacity - 1
+	 * @param x:        center x
+	 * @param y:        center y
+	 * @param width:    width
+	 * @param height:   height
+	 * @param rotation: unit: degree
+	 * @param region:   region of the texture
+	 * @param color:    packed color, see Color.toFloatBits()
+	 */
+	public void set(int index, float x, float y, float width, float height, float rotation, TextureRegion region,
+			float color) {
+		int mesh = index / MAX_PER_MESH;
+		FloatBuffer buffer = buffers[mesh];
+		float radian = rotation * MathUtils.degreesToRadians;
+
+		float u = region.getU();
+		float v = region.getV();
+		float u2 = region.getU2();
+		float v2 = region.getV2();
+		for (int offset = 0; offset < INSTANCE_SIZE; offset += VERTEX_SIZE) {
+			instance[offset + 2] = x;
+			instance[offset + 3] = y;
+			instance[offset + 4] = width;
+			instance[offset + 5] = height;
+			instance[offset + 6] = radian;
+			instance[offset + 7] = u;
+			instance[offset + 8] = v;
+			instance[offset + 9] = u2;
+			instance[offset + 10] = v2;
+			instance[offset + 11] = color;
+		}
+
+		// one bulk write instead of one put per float
+		buffer.position((index % MAX_PER_MESH) * INSTANCE_SIZE);
+		buffer.put(instance);
+		dirties[mesh] = true;
+	}
+
+	/**
+	 * Move the instance, the other values are kept
+	 */
+	public void setPosition(int index, float x, float y) {
+		int mesh = index / MAX_PER_MESH;
+		FloatBuffer buffer = buffers[mesh];
+
+		int offset = (index % MAX_PER_MESH) * INSTANCE_SIZE;
+		for (int vertex = 0; vertex < 4; vertex++, offset += VERTEX_SIZE) {
+			buffer.put(offset + 2, x);
+			buffer.put(offset + 3, y);
+		}
+		dirties[mesh] = true;
+	}
+
+	/**
+	 * Set the number of drawn instances, the instances from 0 to size - 1 are
+	 * drawn
+	 */
+	public void setSize(int size) {
+		if (size > capacity) {
+			throw new IllegalArgumentException("Size " + size + " is over the capacity " + capacity);
+		}
+		if (size != this.size) {
+			// the uploaded range of the meshes is changed
+			for (int i = 0; i < dirties.length; i++) {
+				dirties[i] = true;
+			}
+		}
+		this.size = size;
+	}
+
+	/**
+	 * Draw the instances with the alpha blending
+	 *
+	 * @param projection: the projection matrix, e.g. camera.combined
+	 */
+	public void render(Matrix4 projection) {
+		long start = System.nanoTime();
+		drawCalls = 0;
+		uploadedMeshes = 0;
+
+		Gdx.gl20.glEnable(GL20.GL_BLEND);
+		Gdx.gl20.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		texture.bind(0);
+		shader.begin();
+		shader.setUniformMatrix("u_projTrans", projection);
+		shader.setUniformi("u_texture", 0);
+
+		for (int i = 0; i < meshes.length; i++) {
+			int instances = Math.min(MAX_PER_MESH, size - i * MAX_PER_MESH);
+			if (instances <= 0) {
+				break;
+			}
+
+			if (dirties[i]) {
+				// getVerticesBuffer() marks the buffer to be uploaded at the next bind,
+				// only the drawn range is uploaded
+				FloatBuffer buffer = meshes[i].getVerticesBuffer();
+				buffer.position(0);
+				buffer.limit(instances * INSTANCE_SIZE);
+				meshes[i].render(shader, GL20.GL_TRIANGLES, 0, instances * 6);
+				// the whole buffer can be written again
+				buffer.clear();
+				dirties[i] = false;
+				uploadedMeshes++;
+			} else {
+				meshes[i].render(shader, GL20.GL_TRIANGLES, 0, instances * 6);
+			}
+			drawCalls++;
+		}
+
+		shader.end();
+		renderTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Retrieve the number of drawn instances
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the maximum number of instances
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Retrieve the draw calls of the last render
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Retrieve the number of meshes uploaded by the last render
+	 */
+	public int getUploadedMeshes() {
+		return uploadedMeshes;
+	}
+
+	/**
+	 * Retrieve the CPU time of the last render, unit: nanosecond
+	 */
+	public long getRenderTime() {
+		return renderTime;
+	}
+
+	@Override
+	public void dispose() {
+		for (int i = 0; i < meshes.length; i++) {
+			meshes[i].dispose();
+		}
+		shader.dispose();
+	}
+}
@@ -0,0 +1,278 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.renderer;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Collect the sprites of a frame and draw them sorted by layer, then texture,
+ * then blend mode (then depth and the submission order) so the sprite batch
+ * flushes only when the texture or the blending really changes. The sort is
+ * stable and allocation free
+ *
+ * @author kong
+ *
+ */
+public class RenderQueue {
+	public static final byte BLEND_ALPHA = 0;
+	public static final byte BLEND_ADDITIVE = 1;
+	public static final byte BLEND_OPAQUE = 2;
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	// entries
+	private Sprite[] sprites;
+	private int[] layers;
+	private int[] textures;
+	private byte[] blends;
+	private float[] depths;
+	private int size;
+
+	// the sorted indices and the buffer of merge sort
+	private int[] order;
+	private int[] buffer;
+
+	// texture -> id in the order of the first submission
+	private ObjectIntMap<Texture> textureIds;
+
+	// statistic of the last flush
+	private int drawCalls;
+	private int textureSwitches;
+	private int blendSwitches;
+
+	public RenderQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public RenderQueue(int capacity) {
+		textureIds = new ObjectIntMap<Texture>();
+		resize(Math.max(1, capacity));
+	}
+
+	/**
+	 * Submit the sprite with the alpha blending
+	 *
+	 * @param layer: drawn from the lowest layer
+	 * @param depth: drawn from the lowest depth if the texture and the blending
+	 *               are the same
+	 */
+	public void submit(Sprite sprite, int layer, float depth) {
+		submit(sprite, layer, depth, BLEND_ALPHA);
+	}
+
+	/**
+	 * Submit the sprite
+	 *
+	 * @param layer: drawn from the lowest layer
+	 * @param depth: drawn from the lowest depth if the texture and the blending
+	 *               are the same
+	 * @param blend: BLEND_ALPHA, BLEND_ADDITIVE, BLEND_OPAQUE
+	 */
+	public void submit(Sprite sprite, int layer, float depth, byte blend) {
+		if (size == sprites.length) {
+			resize(size * 2);
+		}
+
+		Texture texture = sprite.getTexture();
+		int textureId = textureIds.get(texture, -1);
+		if (textureId < 0) {
+			textureId = textureIds.size;
+			textureIds.put(texture, textureId);
+		}
+
+		sprites[size] = sprite;
+		layers[size] = layer;
+		textures[size] = textureId;
+		blends[size] = blend;
+		depths[size] = depth;
+		size++;
+	}
+
+	/**
+	 * Draw the sorted sprites and clear the queue, between batch.begin() and
+	 * batch.end(). The batch is left with the alpha blending
+	 */
+	public void flush(SpriteBatch batch) {
+		sort();
+
+		int startCalls = batch.renderCalls;
+		textureSwitches = 0;
+		blendSwitches = 0;
+
+		int lastTexture = -1;
+		byte lastBlend = BLEND_ALPHA;
+		setBlend(batch, BLEND_ALPHA);
+		for (int i = 0; i < size; i++) {
+			int index = order[i];
+			if (blends[index] != lastBlend) {
+				setBlend(batch, blends[index]);
+				lastBlend = blends[index];
+				blendSwitches++;
+			}
+			if (textures[index] != lastTexture) {
+				if (lastTexture >= 0) {
+					textureSwitches++;
+				}
+				lastTexture = textures[index];
+			}
+			sprites[index].draw(batch);
+		}
+		batch.flush();
+		setBlend(batch, BLEND_ALPHA);
+
+		drawCalls = batch.renderCalls - startCalls;
+		clear();
+	}
+
+	/**
+	 * Drop the submitted sprites
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			sprites[i] = null;
+		}
+		size = 0;
+		textureIds.clear();
+	}
+
+	/**
+	 * Retrieve the number of submitted sprites
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieve the draw calls of the last flush
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Retrieve the number of texture switches (batch flushes) of the last flush
+	 */
+	public int getTextureSwitches() {
+		return textureSwitches;
+	}
+
+	/**
+	 * Retrieve the number of blending switches of the last flush
+	 */
+	public int getBlendSwitches() {
+		return blendSwitches;
+	}
+
+	// Change the blending of batch, it flushes if it's changed
+	private void setBlend(SpriteBatch batch, byte blend) {
+		switch (blend) {
+		case BLEND_OPAQUE:
+			batch.disableBlending();
+			break;
+		case BLEND_ADDITIVE:
+			batch.enableBlending();
+			batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE);
+			break;
+		default:
+			batch.enableBlending();
+			batch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+			break;
+		}
+	}
+
+	// Stable merge sort of the indices, bottom up
+	private void sort() {
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+
+		int[] from = order;
+		int[] to = buffer;
+		for (int width = 1; width < size; width *= 2) {
+			for (int low = 0; low < size; low += width * 2) {
+				int middle = Math.min(low + width, size);
+				int high = Math.min(low + width * 2, size);
+				int left = low, right = middle, index = low;
+				while (left < middle && right < high) {
+					// take the left one if it's equal (stable)
+					to[index++] = compare(from[right], from[left]) < 0 ? from[right++] : from[left++];
+				}
+				while (left < middle) {
+					to[index++] = from[left++];
+				}
+				while (right < high) {
+					to[index++] = from[right++];
+				}
+			}
+			int[] temp = from;
+			from = to;
+			to = temp;
+		}
+
+		if (from != order) {
+			System.arraycopy(from, 0, order, 0, size);
+		}
+	}
+
+	// Compare two entries: layer, texture, blend, depth
+	private int compare(int a, int b) {
+		if (layers[a] != layers[b]) {
+			return layers[a] < layers[b] ? -1 : 1;
+		}
+		if (textures[a] != textures[b]) {
+			return textures[a] < textures[b] ? -1 : 1;
+		}
+		if (blends[a] != blends[b]) {
+			return blends[a] < blends[b] ? -1 : 1;
+		}
+		return Float.compare(depths[a], depths[b]);
+	}
+
+	// Resize the arrays
+	private void resize(int capacity) {
+		Sprite[] newSprites = new Sprite[capacity];
+		int[] newLayers = new int[capacity];
+		int[] newTextures = new int[capacity];
+		byte[] newBlends = new byte[capacity];
+		float[] newDepths = new float[capacity];
+		if (sprites != null) {
+			System.arraycopy(sprites, 0, newSprites, 0, size);
+			System.arraycopy(layers, 0, newLayers, 0, size);
+			System.arraycopy(textures, 0, newTextures, 0, size);
+			System.arraycopy(blends, 0, newBlends, 0, size);
+			System.arraycopy(depths, 0, newDepths, 0, size);
+		}
+		sprites = newSprites;
+		layers = newLayers;
+		textures = newTextures;
+		blends = newBlends;
+		depths = newDepths;
+		order = new int[capacity];
+		buffer = new int[capacity];
+	}
+}
@@ -0,0 +1,216 @@
+/*
+The MIT License
+
+Copyright (c) 2014 kong <congcoi123@gmail.com>
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package com.tenserver.woodyx.renderer;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * A layer of sprites which almost never change (backgrounds, decorations). The
+ * sprites are recorded once into a {@link SpriteCache} and drawn with one call
+ * per frame. The layer is recorded again only when a member sprite changes
+ * (position, size, rotation, scale, color, region or texture). The parallax is
+ * done by the transform matrix, it doesn't need a new record
+ *
+ * @author kong
+ *
+ */
+public class StaticLayer implements Disposable {
+	private static final int VERTICES = 20;
+
+	private SpriteCache cache;
+	private int capacity;
+	private int cacheId;
+	private boolean dirty;
+
+	// members and the copy of their vertices at the last record
+	private Array<Sprite> sprites;
+	private Array<Texture> textures;
+	private float[] vertices;
+
+	// check the members every frame
+	private boolean autoCheck;
+
+	// parallax: the layer moves with this factor of the camera
+	private float parallaxX;
+	private float parallaxY;
+	private Matrix4 transform = new Matrix4();
+
+	// statistic
+	private int recordCount;
+
+	/**
+	 * @param capacity: the maximum number of sprites
+	 */
+	public StaticLayer(int capacity) {
+		this.capacity = capacity;
+		cache = new SpriteCache(capacity, false);
+		sprites = new Array<Sprite>(capacity);
+		textures = new Array<Texture>(capacity);
+		vertices = new float[capacity * VERTICES];
+		autoCheck = true;
+		parallaxX = 1;
+		parallaxY = 1;
+		dirty = true;
+	}
+
+	/**
+	 * Add the sprite
+	 */
+	public void add(Sprite sprite) {
+		if (sprites.size == capacity) {
+			throw new GdxRuntimeException("The static layer is full: " + capacity);
+		}
+		sprites.add(sprite);
+		textures.add(null);
+		dirty = true;
+	}
+
+	/**
+	 * Remove the sprite
+	 */
+	public void remove(Sprite sprite) {
+		int index = sprites.indexOf(sprite, true);
+		if (index < 0) {
+			return;
+		}
+		sprites.removeIndex(index);
+		textures.removeIndex(index);
+		System.arraycopy(vertices, (index + 1) * VERTICES, vertices, index * VERTICES,
+				(sprites.size - index) * VERTICES);
+		dirty = true;
+	}
+
+	/**
+	 * Remove all sprites
+	 */
+	public void clear() {
+		sprites.clear();
+		textures.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Record the layer again at the next render
+	 */
+	public void invalidate() {
+		dirty = true;
+	}
+
+	/**
+	 * Check the members for changes every frame (default), if it's disabled use
+	 * {@link #invalidate()} after changing them
+	 */
+	public void setAutoCheck(boolean autoCheck) {
+		this.autoCheck = autoCheck;
+	}
+
+	/**
+	 * Set the parallax factors, 1 (default) moves with the world, 0 stays on the
+	 * screen, between them is far away
+	 */
+	public void setParallax(float parallaxX, float parallaxY) {
+		this.parallaxX = parallaxX;
+		this.parallaxY = parallaxY;
+	}
+
+	/**
+	 * Draw the layer by the camera, the sprites are recorded again if they're
+	 * changed. The blending is not changed, it's usually disabled for the
+	 * backgrounds
+	 */
+	public void render(Camera camera) {
+		if (dirty || (autoCheck && isChanged())) {
+			record();
+		}
+
+		// move the layer by the part of the camera's position it doesn't follow
+		transform.setToTranslation(camera.position.x * (1 - parallaxX), camera.position.y * (1 - parallaxY), 0);
+		cache.setProjectionMatrix(camera.combined);
+		cache.setTransformMatrix(transform);
+		cache.begin();
+		cache.draw(cacheId);
+		cache.end();
+	}
+
+	/**
+	 * Retrieve the number of sprites
+	 */
+	public int size() {
+		return sprites.size;
+	}
+
+	/**
+	 * Retrieve the number of records since the creation
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public void dispose() {
+		cache.dispose();
+		sprites.clear();
+		textures.clear();
+	}
+
+	// Record the sprites into the cache
+	private void record() {
+		cache.clear();
+		cache.beginCache();
+		for (int i = 0; i < sprites.size; i++) {
+			Sprite sprite = sprites.get(i);
+			System.arraycopy(sprite.getVertices(), 0, vertices, i * VERTICES, VERTICES);
+			textures.set(i, sprite.getTexture());
+			cache.add(sprite);
+		}
+		cacheId = cache.endCache();
+		dirty = false;
+		recordCount++;
+	}
+
+	// Compare the sprites with their last record
+	private boolean isChanged() {
+		for (int i = 0; i < sprites.size; i++) {
+			Sprite sprite = sprites.get(i);
+			if (sprite.getTexture() != textures.get(i)) {
+				return true;
+			}
+			float[] current = sprite.getVertices();
+			int offset = i * VERTICES;
+			for (int j = 0; j < VERTICES; j++) {
+				if (current[j] != vertices[offset + j]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
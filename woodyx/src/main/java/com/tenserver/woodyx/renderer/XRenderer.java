@@ -25,15 +25,27 @@ package com.tenserver.woodyx.renderer;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.SnapshotArray;
 import com.tenserver.woodyx.camera.XCamera;
 import com.tenserver.woodyx.physics.BoxUtility;
+import com.tenserver.woodyx.physics.CommandBuffer;
+import com.tenserver.woodyx.physics.ForceFieldSystem;
+import com.tenserver.woodyx.physics.JointMonitor;
+import com.tenserver.woodyx.physics.ObjectModel;
+import com.tenserver.woodyx.physics.PhysicsLod;
+import com.tenserver.woodyx.physics.TransformBuffer;
+import com.tenserver.woodyx.physics.WorldStepper;
 
 /**
  * 
@@ -49,6 +61,38 @@ public abstract class XRenderer {
 
 	private Box2DDebugRenderer debuger;
 
+	// the sprites sorted by layer and texture before drawing
+	private RenderQueue renderQueue = new RenderQueue();
+
+	// the visible rectangle of each camera, updated by updateCulling()
+	private Array<Rectangle> viewBounds = new Array<Rectangle>();
+	private Array<Rectangle> groupBounds = new Array<Rectangle>();
+	private int groupBoundsUsed;
+	private int culledCount;
+	private int visibleCount;
+
+	// the camera's version which is set into each batch
+	private int[] projectedVersions = new int[0];
+
+	// the view bounds of the cameras in box, for the physics level of detail
+	private Array<Rectangle> lodViews = new Array<Rectangle>();
+	private Array<Rectangle> lodBounds = new Array<Rectangle>();
+
+	// fixed time step, disabled when it's null
+	private WorldStepper stepper;
+
+	// read the bodies after each step, disabled when it's null
+	private TransformBuffer transformBuffer;
+
+	// apply the recorded commands after each step, disabled when it's null
+	private CommandBuffer commandBuffer;
+
+	// apply the forces before each step, disabled when it's null
+	private ForceFieldSystem forceFields;
+
+	// check the breakable joints after each step, disabled when it's null
+	private JointMonitor jointMonitor;
+
 	public XRenderer(Stage stage, Array<SpriteBatch> batchs, Array<XCamera> cameras) {
 		this.stage = stage;
 		this.batchs = batchs;
@@ -96,10 +140,149 @@ public abstract class XRenderer {
 	}
 
 	/**
-	 * Update the current world
+	 * Enable the fixed time step for updating the world
+	 * 
+	 * @param stepTime:    the fixed step time, unit: second
+	 * @param maxSubSteps: the maximum steps per frame
+	 */
+	public void setFixedStep(float stepTime, int maxSubSteps) {
+		stepper = new WorldStepper(stepTime, maxSubSteps);
+		stepper.setTransformBuffer(transformBuffer);
+		stepper.setCommandBuffer(commandBuffer);
+		stepper.setForceFields(forceFields);
+		stepper.setJointMonitor(jointMonitor);
+	}
+
+	/**
+	 * Disable the fixed time step, the world is stepped by the frame time
+	 */
+	public void disableFixedStep() {
+		stepper = null;
+	}
+
+	/**
+	 * Retrieve the fixed time stepper, <code>null</code> if it's disabled
+	 */
+	public WorldStepper getStepper() {
+		return stepper;
+	}
+
+	/**
+	 * Set the buffer which is captured after each step of the world, can be
+	 * <code>null</code>
+	 */
+	public void setTransformBuffer(TransformBuffer transformBuffer) {
+		this.transformBuffer = transformBuffer;
+		if (stepper != null) {
+			stepper.setTransformBuffer(transformBuffer);
+		}
+	}
+
+	/**
+	 * Retrieve the buffer which is captured after each step of the world
+	 */
+	public TransformBuffer getTransformBuffer() {
+		return transformBuffer;
+	}
+
+	/**
+	 * Set the command buffer which is flushed after each step of the world, can
+	 * be <code>null</code>
+	 */
+	public void setCommandBuffer(CommandBuffer commandBuffer) {
+		this.commandBuffer = commandBuffer;
+		if (stepper != null) {
+			stepper.setCommandBuffer(commandBuffer);
+		}
+	}
+
+	/**
+	 * Retrieve the command buffer which is flushed after each step of the world
+	 */
+	public CommandBuffer getCommandBuffer() {
+		return commandBuffer;
+	}
+
+	/**
+	 * Set the force fields which are applied before each step of the world, can
+	 * be <code>null</code>
+	 */
+	public void setForceFields(ForceFieldSystem forceFields) {
+		this.forceFields = forceFields;
+		if (stepper != null) {
+			stepper.setForceFields(forceFields);
+		}
+	}
+
+	/**
+	 * Retrieve the force fields which are applied before each step of the world
+	 */
+	public ForceFieldSystem getForceFields() {
+		return forceFields;
+	}
+
+	/**
+	 * Set the joint monitor which scans after each step of the world, can be
+	 * <code>null</code>
+	 */
+	public void setJointMonitor(JointMonitor jointMonitor) {
+		this.jointMonitor = jointMonitor;
+		if (stepper != null) {
+			stepper.setJointMonitor(jointMonitor);
+		}
+	}
+
+	/**
+	 * Retrieve the joint monitor which scans after each step of the world
+	 */
+	public JointMonitor getJointMonitor() {
+		return jointMonitor;
+	}
+
+	/**
+	 * Retrieve the interpolation alpha between the previous and the current state
+	 * of bodies, always 1 without the fixed time step, and after
+	 * {@link #updateWorld(World, float)} without transform buffer (the previous
+	 * state of the models is not saved)
+	 */
+	public float getAlpha() {
+		if (stepper != null) {
+			return stepper.getAlpha();
+		}
+		return 1;
+	}
+
+	/**
+	 * Update the current world, the previous state of the models is not saved:
+	 * pass the models to {@link #updateWorld(World, float, Array)} for the
+	 * interpolation
 	 */
 	public void updateWorld(World world, float deltaTime) {
-		world.step(deltaTime, BoxUtility.VELOCITY_ITER, BoxUtility.POSITION_ITER);
+		updateWorld(world, deltaTime, null);
+	}
+
+	/**
+	 * Update the current world, keep the previous state of the models for the
+	 * interpolation when the fixed time step is enabled
+	 */
+	public void updateWorld(World world, float deltaTime, Array<ObjectModel> models) {
+		if (stepper != null) {
+			stepper.update(world, deltaTime, models);
+		} else {
+			if (forceFields != null) {
+				forceFields.apply(world);
+			}
+			world.step(deltaTime, BoxUtility.VELOCITY_ITER, BoxUtility.POSITION_ITER);
+			if (jointMonitor != null) {
+				jointMonitor.scan(world, deltaTime);
+			}
+			if (commandBuffer != null) {
+				commandBuffer.flush(world);
+			}
+			if (transformBuffer != null) {
+				transformBuffer.capture();
+			}
+		}
 	}
 
 	/**
@@ -114,16 +297,169 @@ public abstract class XRenderer {
 	}
 
 	/**
-	 * Set the projection matrix
+	 * Update the physics level of detail by the view bounds of all cameras, after
+	 * updating the cameras
+	 */
+	public void updatePhysicsLod(PhysicsLod lod) {
+		while (lodBounds.size < cameras.size) {
+			lodBounds.add(new Rectangle());
+		}
+
+		lodViews.clear();
+		for (int i = 0; i < cameras.size; i++) {
+			if (cameras.get(i) != null) {
+				lodViews.add(cameras.get(i).getViewBoundsInBox(lodBounds.get(i)));
+			}
+		}
+		lod.update(lodViews);
+	}
+
+	/**
+	 * Compute the visible rectangle of the cameras (zoom and rotation included)
+	 * and reset the culling statistic, after updateCameras()
+	 */
+	public void updateCulling() {
+		while (viewBounds.size < cameras.size) {
+			viewBounds.add(new Rectangle());
+		}
+		for (int i = 0; i < cameras.size; i++) {
+			if (cameras.get(i) != null) {
+				cameras.get(i).getViewBounds(viewBounds.get(i));
+			}
+		}
+		culledCount = 0;
+		visibleCount = 0;
+	}
+
+	/**
+	 * Check if the sprite (rotation and scale included) is visible by the
+	 * camera, the result is counted
+	 */
+	public boolean isVisible(int cameraIndex, Sprite sprite) {
+		if (sprite.getBoundingRectangle().overlaps(viewBounds.get(cameraIndex))) {
+			visibleCount++;
+			return true;
+		}
+		culledCount++;
+		return false;
+	}
+
+	/**
+	 * Draw the sprite with the batch of camera if it's visible, between
+	 * objDrawable(true) and objDrawable(false)
+	 */
+	public boolean drawCulled(int cameraIndex, Sprite sprite) {
+		if (isVisible(cameraIndex, sprite)) {
+			sprite.draw(getSpriteBatch(cameraIndex));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Submit the sprite into the render queue if it's visible by the camera
+	 */
+	public boolean submitCulled(int cameraIndex, Sprite sprite, int layer, float depth) {
+		if (isVisible(cameraIndex, sprite)) {
+			renderQueue.submit(sprite, layer, depth);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Cull the actors of stage by the visible rectangle of camera. The rectangle
+	 * is moved into the groups which are not rotated or scaled, the culling is
+	 * disabled for the others
+	 */
+	public void setStageCulling(int cameraIndex) {
+		groupBoundsUsed = 0;
+		setCullingArea(stage.getRoot(), viewBounds.get(cameraIndex), 0, 0);
+	}
+
+	/**
+	 * Disable the culling of stage
+	 */
+	public void disableStageCulling() {
+		setCullingArea(stage.getRoot(), null, 0, 0);
+	}
+
+	/**
+	 * Retrieve the visible rectangle of camera, valid after updateCulling()
+	 */
+	public Rectangle getViewBounds(int cameraIndex) {
+		return viewBounds.get(cameraIndex);
+	}
+
+	/**
+	 * Retrieve the number of culled sprites since the last updateCulling()
+	 */
+	public int getCulledCount() {
+		return culledCount;
+	}
+
+	/**
+	 * Retrieve the number of visible sprites since the last updateCulling()
+	 */
+	public int getVisibleCount() {
+		return visibleCount;
+	}
+
+	// Set the culling area of the group and its child groups, in their local
+	// coordinates
+	private void setCullingArea(Group group, Rectangle view, float offsetX, float offsetY) {
+		Rectangle area = null;
+		if (view != null) {
+			if (groupBoundsUsed == groupBounds.size) {
+				groupBounds.add(new Rectangle());
+			}
+			area = groupBounds.get(groupBoundsUsed++).set(view.x - offsetX, view.y - offsetY, view.width,
+					view.height);
+		}
+		group.setCullingArea(area);
+
+		SnapshotArray<Actor> children = group.getChildren();
+		for (int i = 0; i < children.size; i++) {
+			Actor child = children.get(i);
+			if (!(child instanceof Group)) {
+				continue;
+			}
+			boolean transformed = child.getRotation() != 0 || child.getScaleX() != 1 || child.getScaleY() != 1;
+			setCullingArea((Group) child, transformed ? null : view, offsetX + child.getX(), offsetY + child.getY());
+		}
+	}
+
+	/**
+	 * Set the projection matrix, only into the batchs whose camera is changed
 	 */
 	public void projectBatchs() {
+		if (projectedVersions.length < batchs.size) {
+			int[] newVersions = new int[batchs.size];
+			System.arraycopy(projectedVersions, 0, newVersions, 0, projectedVersions.length);
+			for (int i = projectedVersions.length; i < newVersions.length; i++) {
+				newVersions[i] = -1;
+			}
+			projectedVersions = newVersions;
+		}
+
 		for (int i = 0; i < batchs.size; i++) {
-			if (batchs.get(i) != null) {
+			if (batchs.get(i) != null && cameras.get(i).getVersion() != projectedVersions[i]) {
 				batchs.get(i).setProjectionMatrix(cameras.get(i).combined);
+				projectedVersions[i] = cameras.get(i).getVersion();
 			}
 		}
 	}
 
+	/**
+	 * Set the projection matrix into all batchs at the next projectBatchs(), e.g.
+	 * after a batch was used with another matrix
+	 */
+	public void invalidateProjection() {
+		for (int i = 0; i < projectedVersions.length; i++) {
+			projectedVersions[i] = -1;
+		}
+	}
+
 	/**
 	 * Set the camera follow the target
 	 */
@@ -166,6 +502,22 @@ public abstract class XRenderer {
 		}
 	}
 
+	/**
+	 * Draw the static layer (cached background) by the camera, instead of
+	 * bgDrawable()
+	 */
+	public void renderStaticLayer(StaticLayer layer, int cameraIndex) {
+		layer.render(getCamera(cameraIndex));
+	}
+
+	/**
+	 * Draw the instances (e.g. particles) by the camera, outside of the sprite
+	 * batchs' begin() / end()
+	 */
+	public void renderInstanced(InstancedRenderer renderer, int cameraIndex) {
+		renderer.render(getCamera(cameraIndex).combined);
+	}
+
 	/**
 	 * Prepare for drawing objects
 	 */
@@ -178,6 +530,42 @@ public abstract class XRenderer {
 		}
 	}
 
+	/**
+	 * Submit the sprite into the render queue, it's drawn by
+	 * {@link #renderQueue(int)}
+	 *
+	 * @param layer: drawn from the lowest layer
+	 * @param depth: drawn from the lowest depth in the same layer and texture
+	 */
+	public void submit(Sprite sprite, int layer, float depth) {
+		renderQueue.submit(sprite, layer, depth);
+	}
+
+	/**
+	 * Submit the sprite into the render queue with a blending
+	 *
+	 * @param blend: BLEND_ALPHA, BLEND_ADDITIVE, BLEND_OPAQUE of RenderQueue
+	 */
+	public void submit(Sprite sprite, int layer, float depth, byte blend) {
+		renderQueue.submit(sprite, layer, depth, blend);
+	}
+
+	/**
+	 * Draw the submitted sprites with the batch, sorted to reduce the flushes
+	 */
+	public void renderQueue(int batchIndex) {
+		objDrawable(batchIndex, true);
+		renderQueue.flush(getSpriteBatch(batchIndex));
+		objDrawable(batchIndex, false);
+	}
+
+	/**
+	 * Retrieve the render queue (draw calls, texture switches of the last frame)
+	 */
+	public RenderQueue getRenderQueue() {
+		return renderQueue;
+	}
+
 	/**
 	 * Retrieve the sprite batch
 	 */
@@ -30,6 +30,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.tenserver.woodyx.physics.BoxUtility;
 import com.tenserver.woodyx.physics.ObjectModel;
+import com.tenserver.woodyx.physics.TransformBuffer;
 
 /**
  * 
@@ -130,21 +131,76 @@ public class ObjectSprite extends Sprite {
 	 * Update the follow model
 	 */
 	public void updateFollowModel(ObjectModel model, float rangeCenterX, float rangeCenterY, boolean isUpdateRotation) {
+		Vector2 position = model.getBody().getPosition();
+		followModel(model, position.x, position.y, model.getBody().getAngle(), rangeCenterX, rangeCenterY,
+				isUpdateRotation);
+	}
+
+	/**
+	 * Update the follow model, blend the previous and the current state of the
+	 * body. The model must be passed to the stepper's update (see
+	 * {@link com.tenserver.woodyx.physics.WorldStepper#update}) which saves its
+	 * previous state, otherwise use an alpha of 1
+	 * 
+	 * @param alpha: interpolation alpha in range [0,1], see
+	 *               {@link com.tenserver.woodyx.renderer.XRenderer#getAlpha()}
+	 */
+	public void updateFollowModel(ObjectModel model, float rangeCenterX, float rangeCenterY, boolean isUpdateRotation,
+			float alpha) {
+		Vector2 position = model.getBody().getPosition();
+		Vector2 previous = model.getPreviousPosition();
+		float angle = model.getBody().getAngle();
+		followModel(model, previous.x + (position.x - previous.x) * alpha,
+				previous.y + (position.y - previous.y) * alpha,
+				model.getPreviousAngle() + (angle - model.getPreviousAngle()) * alpha, rangeCenterX, rangeCenterY,
+				isUpdateRotation);
+	}
+
+	/**
+	 * Update the follow model from the transform buffer instead of the body, the
+	 * model must be registered in the buffer
+	 */
+	public void updateFollowModel(TransformBuffer buffer, ObjectModel model, float rangeCenterX, float rangeCenterY,
+			boolean isUpdateRotation) {
+		int index = model.getTransformIndex();
+		followModel(model, buffer.getX()[index], buffer.getY()[index], buffer.getAngle()[index], rangeCenterX,
+				rangeCenterY, isUpdateRotation);
+	}
+
+	/**
+	 * Update the follow model from the transform buffer, blend the previous and
+	 * the current state
+	 * 
+	 * @param alpha: interpolation alpha in range [0,1]
+	 */
+	public void updateFollowModel(TransformBuffer buffer, ObjectModel model, float rangeCenterX, float rangeCenterY,
+			boolean isUpdateRotation, float alpha) {
+		int index = model.getTransformIndex();
+		float previousX = buffer.getPreviousX()[index];
+		float previousY = buffer.getPreviousY()[index];
+		float previousAngle = buffer.getPreviousAngle()[index];
+		followModel(model, previousX + (buffer.getX()[index] - previousX) * alpha,
+				previousY + (buffer.getY()[index] - previousY) * alpha,
+				previousAngle + (buffer.getAngle()[index] - previousAngle) * alpha, rangeCenterX, rangeCenterY,
+				isUpdateRotation);
+	}
+
+	// Set the sprite to the body's position and angle (in radian)
+	private void followModel(ObjectModel model, float x, float y, float angle, float rangeCenterX, float rangeCenterY,
+			boolean isUpdateRotation) {
 		if (model.isBasicShape()) {
 			// polygon
-			bodyPosition.x = model.getBody().getPosition().x
-					- BoxUtility.ConvertToBox(model.boxPolygon.x / 2 - rangeCenterX);
-			bodyPosition.y = model.getBody().getPosition().y
-					- BoxUtility.ConvertToBox(model.boxPolygon.y / 2 - rangeCenterY);
+			bodyPosition.x = x - BoxUtility.ConvertToBox(model.boxPolygon.x / 2 - rangeCenterX);
+			bodyPosition.y = y - BoxUtility.ConvertToBox(model.boxPolygon.y / 2 - rangeCenterY);
 			if (isUpdateRotation)
 				this.setOrigin(this.getWidth() / 2, this.getHeight() / 2);
 		} else {
-			bodyPosition = model.getBody().getPosition().sub(model.getBodyOrigin());
+			bodyPosition.set(x, y).sub(model.getBodyOrigin());
 			if (isUpdateRotation)
 				this.setOrigin(model.getBodyOrigin().x, model.getBodyOrigin().y);
 		}
 		this.setPosition(bodyPosition.x, bodyPosition.y);
 		if (isUpdateRotation)
-			this.setRotation(model.getBody().getAngle() * MathUtils.radiansToDegrees);
+			this.setRotation(angle * MathUtils.radiansToDegrees);
 	}
 }